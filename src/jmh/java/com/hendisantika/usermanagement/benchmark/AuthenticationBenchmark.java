@@ -0,0 +1,39 @@
+package com.hendisantika.usermanagement.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login hot path: the user lookup alone, and the full provider authentication including the BCrypt verify.
+ * Sample-time mode reports p99 next to throughput.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+    @Benchmark
+    public UserDetails loadUserByUsername(SeededApplication app) {
+        return app.bean(UserDetailsService.class).loadUserByUsername(app.randomUsername());
+    }
+
+    @Benchmark
+    public Authentication authenticate(SeededApplication app) {
+        return app.bean(DaoAuthenticationProvider.class).authenticate(
+                new UsernamePasswordAuthenticationToken(app.randomUsername(), SeededApplication.PASSWORD));
+    }
+}
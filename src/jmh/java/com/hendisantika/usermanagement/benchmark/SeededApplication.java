@@ -0,0 +1,127 @@
+package com.hendisantika.usermanagement.benchmark;
+
+import com.hendisantika.usermanagement.UserManagementApplication;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The application started once per trial on an in-memory H2 database seeded with {@code users} accounts,
+ * all sharing {@link #PASSWORD}.
+ */
+@State(Scope.Benchmark)
+public class SeededApplication {
+
+    public static final String PASSWORD = "benchmark-password";
+
+    private static final int SEED_BATCH = 1_000;
+
+    @Param({"1000", "10000"})
+    public int users;
+
+    @Param({"10"})
+    public int bcryptStrength;
+
+    public ConfigurableApplicationContext context;
+
+    public Set<Role> userRoles;
+
+    private List<Long> userIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.jdbc.batch_size", "100");
+        properties.put("spring.devtools.restart.enabled", "false");
+        properties.put("server.port", "0");
+        properties.put("logging.level.root", "WARN");
+        properties.put("user-management.password-hashing.bcrypt.strength", bcryptStrength);
+        // Benchmark clients log in from one address far faster than any login budget allows
+        properties.put("user-management.login-throttling.enabled", "false");
+        properties.putAll(extraProperties());
+
+        // As command line arguments, so they take precedence over application.properties
+        String[] args = properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        context = new SpringApplicationBuilder(UserManagementApplication.class).run(args);
+        seed();
+    }
+
+    /**
+     * Additional Spring properties for a benchmark, applied over the defaults above.
+     */
+    protected Map<String, Object> extraProperties() {
+        return Map.of();
+    }
+
+    private void seed() {
+        UserRepository repository = context.getBean(UserRepository.class);
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        Role userRole = context.getBean(RoleRegistry.class).findByName(RoleRegistry.USER).orElseThrow();
+        userRoles = Set.of(userRole);
+
+        userIds = new ArrayList<>(users);
+        List<User> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < users; i++) {
+            batch.add(newUser(username(i), hash));
+            if (batch.size() == SEED_BATCH || i == users - 1) {
+                repository.saveAll(batch).forEach(u -> userIds.add(u.getId()));
+                batch.clear();
+            }
+        }
+    }
+
+    public User newUser(String username, String encodedPassword) {
+        User user = new User();
+        user.setFirstName("Bench");
+        user.setLastName("Mark");
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword(encodedPassword);
+        user.setRoles(userRoles);
+        return user;
+    }
+
+    public static String username(int index) {
+        return "user" + index;
+    }
+
+    public String randomUsername() {
+        return username(ThreadLocalRandom.current().nextInt(users));
+    }
+
+    public Long userId(int index) {
+        return userIds.get(index % userIds.size());
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+}
@@ -0,0 +1,172 @@
+package com.hendisantika.usermanagement.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform versus virtual request threads under a mixed load over real HTTP: logins (BCrypt on the
+ * hashing pool), list pages (JDBC and rendering) and signups, run concurrently by more clients than
+ * Tomcat has platform threads. Compare the {@code virtualThreads} results for throughput and p99.
+ * <p>
+ * {@code virtualThreads=true} needs a Java 21+ runtime:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="ThreadingModelBenchmark -p users=10000"}.
+ * On machines with few cores add {@code -p bcryptStrength=4}, otherwise logins saturate the hashing pool
+ * and time out before the request threads become the bottleneck.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(1)
+public class ThreadingModelBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ServerState extends SeededApplication {
+
+        @Param({"false", "true"})
+        public boolean virtualThreads;
+
+        @Param({"32"})
+        public int tomcatMaxThreads;
+
+        private final AtomicInteger signups = new AtomicInteger();
+
+        HttpClient client;
+
+        String baseUrl;
+
+        @Override
+        protected Map<String, Object> extraProperties() {
+            if (virtualThreads && Runtime.version().feature() < 21) {
+                throw new IllegalStateException("virtualThreads=true needs a Java 21+ runtime, running on "
+                        + Runtime.version());
+            }
+            return Map.of("spring.threads.virtual.enabled", virtualThreads,
+                    "server.tomcat.threads.max", tomcatMaxThreads);
+        }
+
+        @Setup(Level.Trial)
+        public void client() {
+            client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        String nextSignupUsername() {
+            return "signup" + signups.incrementAndGet();
+        }
+
+        String userRoleId() {
+            return String.valueOf(userRoles.iterator().next().getId());
+        }
+    }
+
+    /**
+     * One logged-in session per client thread, used for the list requests.
+     */
+    @State(Scope.Thread)
+    public static class Session {
+
+        String cookie;
+
+        @Setup(Level.Trial)
+        public void login(ServerState server) throws IOException, InterruptedException {
+            HttpResponse<Void> response = postLogin(server, server.randomUsername());
+            expectLoggedIn(response);
+            cookie = response.headers().firstValue("Set-Cookie")
+                    .map(value -> value.split(";", 2)[0])
+                    .orElseThrow(() -> new IllegalStateException("Login did not start a session"));
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(16)
+    public int login(ServerState server) throws IOException, InterruptedException {
+        return expectLoggedIn(postLogin(server, server.randomUsername()));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(40)
+    public int list(ServerState server, Session session) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(server.baseUrl + "/userForm"))
+                .header("Cookie", session.cookie)
+                .GET()
+                .build();
+        return expect(server.client.send(request, HttpResponse.BodyHandlers.discarding()), 200);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(8)
+    public int signup(ServerState server) throws IOException, InterruptedException {
+        String username = server.nextSignupUsername();
+        HttpRequest request = form(server, "/signup", Map.of(
+                "firstName", "Bench",
+                "lastName", "Mark",
+                "email", username + "@example.com",
+                "username", username,
+                "password", SeededApplication.PASSWORD,
+                "confirmPassword", SeededApplication.PASSWORD,
+                "roles", server.userRoleId()));
+        return expect(server.client.send(request, HttpResponse.BodyHandlers.discarding()), 200);
+    }
+
+    private static HttpResponse<Void> postLogin(ServerState server, String username) throws IOException, InterruptedException {
+        HttpRequest request = form(server, "/login", Map.of("username", username, "password", SeededApplication.PASSWORD));
+        return server.client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static HttpRequest form(ServerState server, String path, Map<String, String> fields) {
+        StringJoiner body = new StringJoiner("&");
+        fields.forEach((name, value) -> body.add(name + "=" + URLEncoder.encode(value, StandardCharsets.UTF_8)));
+        return HttpRequest.newBuilder(URI.create(server.baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    private static int expectLoggedIn(HttpResponse<?> response) {
+        expect(response, 302);
+        String location = response.headers().firstValue("Location").orElse("");
+        if (!location.endsWith("/userForm")) {
+            throw new IllegalStateException("Login failed, redirected to " + location);
+        }
+        return response.statusCode();
+    }
+
+    private static int expect(HttpResponse<?> response, int status) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(response.request().uri() + " answered " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
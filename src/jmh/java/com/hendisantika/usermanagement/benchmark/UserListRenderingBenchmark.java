@@ -0,0 +1,71 @@
+package com.hendisantika.usermanagement.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * {@code GET /userForm}: the user page query plus rendering {@code user-form/user-view.html} with
+ * {@code listPageSize} rows, through the full security filter chain. With {@code fragmentCache=true}
+ * repeated views are served from the rendered table fragment, as no write happens during the run.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class UserListRenderingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class RenderingState extends SeededApplication {
+
+        @Param({"50", "500"})
+        public int listPageSize;
+
+        @Param({"true", "false"})
+        public boolean fragmentCache;
+
+        MockMvc mockMvc;
+
+        @Override
+        protected Map<String, Object> extraProperties() {
+            // A zero-size cache evicts every entry right away, so each view renders the table
+            return Map.of("user-management.user-list.page-size", listPageSize,
+                    "user-management.user-list.fragment-cache.maximum-size", fragmentCache ? 500 : 0);
+        }
+
+        @Setup(Level.Trial)
+        public void mockMvc() {
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                    .apply(springSecurity())
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public String renderUserView(RenderingState state) throws Exception {
+        return state.mockMvc.perform(get("/userForm").with(user("admin").roles("ADMIN")))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+}
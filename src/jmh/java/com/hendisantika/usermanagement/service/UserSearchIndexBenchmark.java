@@ -0,0 +1,115 @@
+package com.hendisantika.usermanagement.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserSearchIndex} type-ahead latency over synthetic users, without Spring or a database. Lives in
+ * the service package to fill the index through the package-private {@code put}. The estimated size is
+ * printed after the build; compare it with a heap histogram when changing the layout.
+ * <p>
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.args="UserSearchIndexBenchmark -p users=1000000"}
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UserSearchIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = {"James", "Mary", "Robert", "Patricia", "John", "Jennifer",
+            "Michael", "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica",
+            "Thomas", "Sarah", "Charles", "Karen", "Ada", "Alan", "Grace", "Linus", "Margaret", "Dennis"};
+
+    private static final int LAST_NAMES = 20_000;
+
+    @State(Scope.Benchmark)
+    public static class IndexState {
+
+        @Param({"1000000"})
+        public int users;
+
+        @Param({"20"})
+        public int limit;
+
+        UserSearchIndex index;
+
+        @Setup(Level.Trial)
+        public void build() {
+            index = new UserSearchIndex(null, null);
+            Random random = new Random(42);
+            for (int i = 0; i < users; i++) {
+                String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String lastName = lastName(random.nextInt(LAST_NAMES));
+                String username = firstName.toLowerCase().charAt(0) + lastName.toLowerCase() + i;
+                index.put((long) i, firstName, lastName, username, firstName.toLowerCase() + "." + lastName.toLowerCase()
+                        + i + "@example.com");
+            }
+            System.out.printf("%nIndexed %d users: %d tokens, %d postings, about %d MB%n", index.getUserCount(),
+                    index.getTokenCount(), index.getPostingCount(), index.getEstimatedSizeInBytes() / (1024 * 1024));
+        }
+
+        String randomLastNamePrefix(int length) {
+            String lastName = lastName(ThreadLocalRandom.current().nextInt(LAST_NAMES));
+            return lastName.substring(0, Math.min(length, lastName.length()));
+        }
+    }
+
+    /**
+     * Two or three letters, as typed: wide prefix ranges that stop at the limit.
+     */
+    @Benchmark
+    public List<Long> shortPrefix(IndexState state) {
+        return state.index.search(state.randomLastNamePrefix(2 + ThreadLocalRandom.current().nextInt(2)), state.limit);
+    }
+
+    /**
+     * A first name plus a last name prefix: the lead term narrows the range, the other filters it.
+     */
+    @Benchmark
+    public List<Long> firstAndLastName(IndexState state) {
+        String firstName = FIRST_NAMES[ThreadLocalRandom.current().nextInt(FIRST_NAMES.length)];
+        return state.index.search(firstName + " " + state.randomLastNamePrefix(5), state.limit);
+    }
+
+    /**
+     * A prefix that matches nothing, the full miss path.
+     */
+    @Benchmark
+    public List<Long> miss(IndexState state) {
+        return state.index.search("zzq" + state.randomLastNamePrefix(3), state.limit);
+    }
+
+    /**
+     * Deterministic pronounceable last names, e.g. "Kovarin", so prefixes share ranges like real ones do.
+     */
+    private static String lastName(int seed) {
+        String consonants = "bdfghklmnprstvz";
+        String vowels = "aeiou";
+        StringBuilder name = new StringBuilder();
+        int value = seed;
+        for (int i = 0; i < 3 || value > 0; i++) {
+            name.append(consonants.charAt(value % consonants.length()));
+            value /= consonants.length();
+            name.append(vowels.charAt(value % vowels.length()));
+            value /= vowels.length();
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+}
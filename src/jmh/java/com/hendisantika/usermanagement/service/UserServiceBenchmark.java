@@ -0,0 +1,91 @@
+package com.hendisantika.usermanagement.service;
+
+import com.hendisantika.usermanagement.benchmark.SeededApplication;
+import com.hendisantika.usermanagement.dto.ChangePasswordForm;
+import com.hendisantika.usermanagement.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link UserService} write paths. Lives in the service package to reach the protected {@code mapUser}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final AtomicLong NEW_USERS = new AtomicLong();
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    /**
+     * Each benchmark thread owns one seeded user, logs in as that (non admin) user and alternates its password.
+     */
+    @State(Scope.Thread)
+    public static class ThreadUser {
+        Long userId;
+        String currentPassword = SeededApplication.PASSWORD;
+        String otherPassword = SeededApplication.PASSWORD + "-changed";
+
+        @Setup(Level.Trial)
+        public void login(SeededApplication app) {
+            int index = THREADS.getAndIncrement();
+            userId = app.userId(index);
+            UserDetails principal = app.bean(UserDetailsServiceImpl.class).loadUserByUsername(SeededApplication.username(index));
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        }
+
+        @TearDown(Level.Trial)
+        public void logout() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public User createUser(SeededApplication app) throws Exception {
+        User user = app.newUser("new" + NEW_USERS.incrementAndGet(), SeededApplication.PASSWORD);
+        user.setConfirmPassword(SeededApplication.PASSWORD);
+        return app.bean(UserService.class).createUser(user);
+    }
+
+    @Benchmark
+    public User changePassword(SeededApplication app, ThreadUser thread) throws Exception {
+        ChangePasswordForm form = new ChangePasswordForm(thread.userId);
+        form.setCurrentPassword(thread.currentPassword);
+        form.setNewPassword(thread.otherPassword);
+        form.setConfirmPassword(thread.otherPassword);
+        User user = app.bean(UserService.class).changePassword(form);
+
+        String previous = thread.currentPassword;
+        thread.currentPassword = thread.otherPassword;
+        thread.otherPassword = previous;
+        return user;
+    }
+
+    @Benchmark
+    public User mapUser(SeededApplication app) {
+        User from = app.newUser("mapped", "HASH");
+        User to = new User();
+        app.bean(UserService.class).mapUser(from, to);
+        return to;
+    }
+}
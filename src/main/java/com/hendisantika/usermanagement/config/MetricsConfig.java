@@ -0,0 +1,142 @@
+package com.hendisantika.usermanagement.config;
+
+import com.hendisantika.usermanagement.controller.UserListFragmentCache;
+import com.hendisantika.usermanagement.security.LoginThrottle;
+import com.hendisantika.usermanagement.security.PasswordHashingExecutor;
+import com.hendisantika.usermanagement.service.UserDetailsCache;
+import com.hendisantika.usermanagement.service.UserSearchIndex;
+import com.hendisantika.usermanagement.service.UsernameAvailabilityService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : user-management
+ * <p>
+ * Meters for the in-process components that keep their own counters. Service timers come from {@code @Timed},
+ * Hikari and Hibernate meters from Spring Boot auto-configuration.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder passwordHashingMetrics(PasswordHashingExecutor executor) {
+        return registry -> {
+            Gauge.builder("password.hashing.queue.depth", executor, PasswordHashingExecutor::getQueueDepth)
+                    .description("Password operations waiting for a hashing thread")
+                    .register(registry);
+            Gauge.builder("password.hashing.queue.capacity", executor, PasswordHashingExecutor::getQueueCapacity)
+                    .register(registry);
+            Gauge.builder("password.hashing.active", executor, PasswordHashingExecutor::getActiveCount)
+                    .register(registry);
+            Gauge.builder("password.hashing.pool.size", executor, PasswordHashingExecutor::getPoolSize)
+                    .register(registry);
+            FunctionCounter.builder("password.hashing.rejected", executor, PasswordHashingExecutor::getRejectedCount)
+                    .description("Password operations rejected because the queue was full")
+                    .register(registry);
+            FunctionCounter.builder("password.hashing.completed", executor, PasswordHashingExecutor::getCompletedCount)
+                    .register(registry);
+            TimeGauge.builder("password.hashing.latency.avg", executor, TimeUnit.MILLISECONDS,
+                            PasswordHashingExecutor::getAverageHashMillis)
+                    .register(registry);
+            TimeGauge.builder("password.hashing.latency.max", executor, TimeUnit.MILLISECONDS,
+                            PasswordHashingExecutor::getMaxHashMillis)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder userDetailsCacheMetrics(UserDetailsCache cache) {
+        return registry -> {
+            FunctionCounter.builder("user.details.cache.requests", cache, UserDetailsCache::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("user.details.cache.requests", cache, UserDetailsCache::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("user.details.cache.evictions", cache, UserDetailsCache::getEvictionCount)
+                    .register(registry);
+            Gauge.builder("user.details.cache.size", cache, UserDetailsCache::size)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder userListFragmentCacheMetrics(UserListFragmentCache cache) {
+        return registry -> {
+            FunctionCounter.builder("user.list.fragment.cache.requests", cache, UserListFragmentCache::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("user.list.fragment.cache.requests", cache, UserListFragmentCache::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("user.list.fragment.cache.size", cache, UserListFragmentCache::getSize)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder usernameAvailabilityMetrics(UsernameAvailabilityService availability) {
+        return registry -> {
+            FunctionCounter.builder("user.username.availability.checks", availability,
+                            UsernameAvailabilityService::getFilteredCount)
+                    .description("Availability checks answered by the Bloom filter alone")
+                    .tag("result", "filtered")
+                    .register(registry);
+            FunctionCounter.builder("user.username.availability.checks", availability,
+                            UsernameAvailabilityService::getConfirmedTakenCount)
+                    .tag("result", "taken")
+                    .register(registry);
+            FunctionCounter.builder("user.username.availability.checks", availability,
+                            UsernameAvailabilityService::getFalsePositiveCount)
+                    .description("Possible matches the database showed to be available")
+                    .tag("result", "false_positive")
+                    .register(registry);
+            Gauge.builder("user.username.filter.false.positive.rate", availability,
+                            UsernameAvailabilityService::getExpectedFalsePositiveRate)
+                    .register(registry);
+            Gauge.builder("user.username.filter.size", availability, UsernameAvailabilityService::getSizeInBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder userSearchIndexMetrics(UserSearchIndex index) {
+        return registry -> {
+            Gauge.builder("user.search.index.users", index, UserSearchIndex::getUserCount)
+                    .register(registry);
+            Gauge.builder("user.search.index.tokens", index, UserSearchIndex::getTokenCount)
+                    .register(registry);
+            Gauge.builder("user.search.index.postings", index, UserSearchIndex::getPostingCount)
+                    .register(registry);
+            Gauge.builder("user.search.index.size", index, UserSearchIndex::getEstimatedSizeInBytes)
+                    .description("Estimated heap used by the user search index")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder loginThrottleMetrics(LoginThrottle throttle) {
+        return registry -> {
+            Gauge.builder("user.login.throttle.active", throttle, LoginThrottle::getActiveAddressBuckets)
+                    .description("Login budgets not full, i.e. used recently")
+                    .tag("key", "ip")
+                    .register(registry);
+            Gauge.builder("user.login.throttle.active", throttle, LoginThrottle::getActiveUsernameBuckets)
+                    .description("Login budgets not full, i.e. used recently")
+                    .tag("key", "username")
+                    .register(registry);
+            Gauge.builder("user.login.throttle.size", throttle, LoginThrottle::getSizeInBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
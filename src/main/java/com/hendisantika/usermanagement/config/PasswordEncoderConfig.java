@@ -0,0 +1,40 @@
+package com.hendisantika.usermanagement.config;
+
+import com.hendisantika.usermanagement.security.BoundedPasswordEncoder;
+import com.hendisantika.usermanagement.security.CalibratedBCryptPasswordEncoder;
+import com.hendisantika.usermanagement.security.PasswordHashingExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : user-management
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    private static final String BCRYPT_ID = "bcrypt";
+
+    /**
+     * New hashes are stored as {@code {bcrypt}$2a$NN$...} at the calibrated cost. Legacy hashes without an id prefix
+     * still verify with BCrypt and are reported as needing an upgrade, so they are rewritten on the next login.
+     */
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+                                           @Value("${user-management.password-hashing.bcrypt.strength:0}") int strength,
+                                           @Value("${user-management.password-hashing.bcrypt.target-verify-time:250ms}") Duration target,
+                                           @Value("${user-management.password-hashing.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${user-management.password-hashing.bcrypt.max-strength:14}") int maxStrength) {
+        int cost = strength > 0 ? strength : CalibratedBCryptPasswordEncoder.calibrate(target, minStrength, maxStrength);
+        CalibratedBCryptPasswordEncoder bcrypt = new CalibratedBCryptPasswordEncoder(cost);
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new BoundedPasswordEncoder(delegating, passwordHashingExecutor);
+    }
+}
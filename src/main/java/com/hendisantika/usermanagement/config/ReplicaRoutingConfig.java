@@ -0,0 +1,141 @@
+package com.hendisantika.usermanagement.config;
+
+import com.hendisantika.usermanagement.jdbc.ReplicaRoutingDataSource;
+import com.hendisantika.usermanagement.service.UserDataVersion;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas: with {@code user-management.datasource.replica.enabled=true} the application data source
+ * routes read-only transactions to the {@code replica.urls} pools, see {@link ReplicaRoutingDataSource}.
+ * The primary pool is still configured by {@code spring.datasource.*}.
+ * <p>
+ * The pools are not beans of their own, so the single {@code dataSource} bean is the one that Flyway, JPA
+ * and the SQL accounting proxy of {@link SqlMonitoringConfig} see.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "user-management.datasource.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${user-management.datasource.replica.urls}") List<String> urls,
+                                 @Value("${user-management.datasource.replica.username:}") String username,
+                                 @Value("${user-management.datasource.replica.password:}") String password,
+                                 @Value("${user-management.datasource.replica.max-lag:2s}") Duration maxLag,
+                                 MeterRegistry meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        pools.add(primary);
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url.trim());
+            // Same credentials as the primary unless given
+            replica.setUsername(StringUtils.hasText(username) ? username : properties.determineUsername());
+            replica.setPassword(StringUtils.hasText(username) ? password : properties.determinePassword());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+            pools.add(replica);
+        }
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("user-management.datasource.replica.urls must list at least one replica");
+        }
+        log.info("Routing read-only transactions to {} replicas, reading own writes from the primary for {}",
+                replicas.size(), maxLag);
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas, maxLag, meterRegistry));
+    }
+
+    /**
+     * Read-only transactions started within {@code max-lag} of a change may read a replica that has not caught
+     * up: their sessions read the second-level cache but do not add to it, so old rows are not cached past the
+     * change. Registered on the entity manager factory, where the transaction manager picks its dialect up.
+     */
+    @Bean
+    public static BeanPostProcessor replicaAwareJpaDialect(ObjectProvider<UserDataVersion> userDataVersion) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean) {
+                    ((AbstractEntityManagerFactoryBean) bean).setJpaDialect(new ReplicaAwareJpaDialect(userDataVersion));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private static final class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+
+        private final ObjectProvider<UserDataVersion> userDataVersion;
+
+        private ReplicaAwareJpaDialect(ObjectProvider<UserDataVersion> userDataVersion) {
+            this.userDataVersion = userDataVersion;
+        }
+
+        @Override
+        public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+                throws SQLException, TransactionException {
+            Object transactionData = super.beginTransaction(entityManager, definition);
+            if (!definition.isReadOnly() || !userDataVersion.getObject().mayLagOnReplicas()) {
+                return transactionData;
+            }
+            // The JPA property rather than the session's cache mode: find() only follows the former
+            Object previous = entityManager.getProperties().get(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE);
+            entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+            return new CacheStoreModeRestore(transactionData, entityManager,
+                    previous != null ? previous : CacheStoreMode.USE);
+        }
+
+        @Override
+        public void cleanupTransaction(Object transactionData) {
+            if (transactionData instanceof CacheStoreModeRestore) {
+                CacheStoreModeRestore restore = (CacheStoreModeRestore) transactionData;
+                // The entity manager outlives the transaction when it is open for the whole request
+                restore.entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, restore.previous);
+                transactionData = restore.transactionData;
+            }
+            super.cleanupTransaction(transactionData);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class CacheStoreModeRestore {
+        private final Object transactionData;
+        private final EntityManager entityManager;
+        private final Object previous;
+    }
+}
@@ -0,0 +1,66 @@
+package com.hendisantika.usermanagement.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache: roles, users, the roles of each user and the username to id natural id
+ * lookups, in bounded Caffeine caches on the heap of each node. The regions are all created here, and
+ * {@code missing_cache_strategy=fail} (application.properties) rejects at startup any cached entity or
+ * collection without one, instead of giving it an unbounded cache.
+ * <p>
+ * Each application context gets its own cache manager, closed with it, so two contexts on different
+ * databases never share entries. The regions use read-write concurrency: writes through a session update
+ * or invalidate their entries on commit, and set-based statements evict the regions of the tables they
+ * declare, see the bulk statements of {@code UserRepository}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    private static final long ROLE_REGION_SIZE = 1_000;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${user-management.second-level-cache.maximum-size:10000}") long maximumSize,
+            @Value("${user-management.second-level-cache.ttl:10m}") Duration ttl) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("user-management:hibernate:" + UUID.randomUUID()),
+                        SecondLevelCacheConfig.class.getClassLoader());
+        // Roles are a handful of rows, changed only through a session: no expiry needed
+        cacheManager.createCache(Role.CACHE_REGION, region(ROLE_REGION_SIZE, null));
+        cacheManager.createCache(User.CACHE_REGION, region(maximumSize, ttl));
+        cacheManager.createCache(User.ROLES_CACHE_REGION, region(maximumSize, ttl));
+        cacheManager.createCache(User.USERNAME_CACHE_REGION, region(maximumSize, ttl));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maximumSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate caches immutable disassembled state, no need to copy it in and out
+        configuration.setStoreByValue(false);
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        return configuration;
+    }
+}
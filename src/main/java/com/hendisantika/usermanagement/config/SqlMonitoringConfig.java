@@ -0,0 +1,50 @@
+package com.hendisantika.usermanagement.config;
+
+import com.hendisantika.usermanagement.jdbc.SqlBudgetFilter;
+import com.hendisantika.usermanagement.jdbc.StatementCountingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-request SQL accounting: statements, rows and driver time, with a statement budget and an N+1
+ * warning. On by default; {@code user-management.sql-monitoring.enabled=false} removes the JDBC proxies.
+ */
+@Configuration
+@ConditionalOnProperty(name = "user-management.sql-monitoring.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMonitoringConfig {
+
+    /**
+     * Static, so the data source is wrapped however early it is created.
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlBudgetFilter> sqlBudgetFilter(MeterRegistry meterRegistry,
+                                                                   @Value("${user-management.sql-monitoring.max-statements:20}") int maxStatements,
+                                                                   @Value("${user-management.sql-monitoring.max-repeats:10}") int maxRepeats) {
+        FilterRegistrationBean<SqlBudgetFilter> registration =
+                new FilterRegistrationBean<>(new SqlBudgetFilter(meterRegistry, maxStatements, maxRepeats));
+        // Around the security filter chain too, whose user lookups belong to the request
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
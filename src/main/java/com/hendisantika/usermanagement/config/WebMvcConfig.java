@@ -0,0 +1,28 @@
+package com.hendisantika.usermanagement.config;
+
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Created by IntelliJ IDEA.
+ * Project : user-management
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final RoleRegistry roleRegistry;
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        // Resolve role ids posted by the user form from the registry instead of one findById per role
+        registry.addConverter(String.class, Role.class, (Converter<String, Role>) id ->
+                StringUtils.hasText(id) ? roleRegistry.findById(Long.valueOf(id.trim())).orElse(null) : null);
+    }
+}
@@ -1,15 +1,35 @@
 package com.hendisantika.usermanagement.config;
 
+import com.hendisantika.usermanagement.security.AuthenticationTokenService;
+import com.hendisantika.usermanagement.security.LoginFailureHandler;
+import com.hendisantika.usermanagement.security.LoginSuccessHandler;
+import com.hendisantika.usermanagement.security.LoginThrottle;
+import com.hendisantika.usermanagement.security.LoginThrottlingFilter;
+import com.hendisantika.usermanagement.security.TokenAuthenticationFilter;
+import com.hendisantika.usermanagement.security.UserAuthenticationProvider;
+import com.hendisantika.usermanagement.security.UserPrincipal;
+import com.hendisantika.usermanagement.service.UserDetailsCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.logout.LogoutFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 /**
@@ -28,29 +48,87 @@ public class WebSecurityConfig {
 
     private final UserDetailsService userDetailsService;
 
+    private final UserDetailsPasswordService userDetailsPasswordService;
+
+    private final UserDetailsCache userDetailsCache;
+
+    private final MeterRegistry meterRegistry;
+
+    private final LoginThrottle loginThrottle;
+
+    private final AuthenticationTokenService authenticationTokenService;
+
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider auth = new DaoAuthenticationProvider();
+        DaoAuthenticationProvider auth = new UserAuthenticationProvider(meterRegistry);
         auth.setUserDetailsService(userDetailsService);
         auth.setPasswordEncoder(bCryptPasswordEncoder);
+        auth.setUserCache(userDetailsCache);
+        // Rehash legacy or wrong-cost hashes on successful login
+        auth.setUserDetailsPasswordService(userDetailsPasswordService);
         return auth;
     }
 
 
+    /**
+     * Non-browser clients: the Prometheus scraper and the scripts of the JSON API and admin endpoints send
+     * HTTP Basic credentials with every request. Basic is only accepted on these paths, and creates no session;
+     * a browser logged in through the form keeps its session here too.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain machineClients(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/actuator/**", "/api/**", "/admin/**")
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(req -> req
+                        .requestMatchers("/actuator/health").permitAll()
+                        // Authorities are the role descriptions, see UserDetailsServiceImpl
+                        .requestMatchers("/actuator/**").hasAnyAuthority("ROLE ADMIN", "ROLE SUPER ADMIN")
+                        .requestMatchers("/admin/**").hasAnyAuthority("ROLE ADMIN", "ROLE SUPER ADMIN")
+                        .requestMatchers(HttpMethod.PATCH, "/api/users/**")
+                        .hasAnyAuthority("ROLE ADMIN", "ROLE SUPER ADMIN")
+                        .anyRequest().authenticated()
+                )
+                .httpBasic(Customizer.withDefaults());
+        if (authenticationTokenService.isEnabled()) {
+            http
+                    .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                    .addFilterBefore(new TokenAuthenticationFilter(authenticationTokenService, userDetailsService),
+                            LogoutFilter.class);
+        }
+        if (loginThrottle.isEnabled()) {
+            // Basic credentials are verified on every request, so they are throttled like the login form
+            http.addFilterBefore(LoginThrottlingFilter.forHttpBasic(loginThrottle, meterRegistry),
+                    BasicAuthenticationFilter.class);
+        }
+        return http.build();
+    }
+
+    /**
+     * Browsers: form login only.
+     */
     @Bean
+    @Order(2)
     public SecurityFilterChain configure(HttpSecurity http) throws Exception {
+        AuthenticationSuccessHandler redirect = new LoginSuccessHandler("/userForm", meterRegistry);
+        AuthenticationSuccessHandler loginSuccessHandler =
+                authenticationTokenService.isEnabled() ? issuingToken(redirect) : redirect;
+
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(req -> req
+                                // Status pages of anonymous requests, such as a throttled login's 429
+                                .dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
                                 .requestMatchers(PUBLIC_LINK).permitAll()
-                                .requestMatchers("/", "/index", "/signup").permitAll()
+                                .requestMatchers("/", "/index", "/signup", "/signup/username-available").permitAll()
                 .anyRequest().authenticated()
                 )
                 .formLogin(formLogin -> formLogin
                 .loginPage("/login")
                 .permitAll()
-                .defaultSuccessUrl("/userForm")
-                .failureUrl("/login?error=true")
+                .successHandler(loginSuccessHandler)
+                .failureHandler(new LoginFailureHandler("/login?error=true", meterRegistry))
                 .usernameParameter("username")
                 .passwordParameter("password")
 
@@ -61,6 +139,19 @@ public class WebSecurityConfig {
                                 .logoutSuccessUrl("/login?logout")
                                 .permitAll()
                 );
+        if (authenticationTokenService.isEnabled()) {
+            // Stateless mode: no HttpSession, every request is authenticated from the signed token cookie
+            http
+                    .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                    .addFilterBefore(new TokenAuthenticationFilter(authenticationTokenService, userDetailsService),
+                            LogoutFilter.class)
+                    .logout(logout -> logout.deleteCookies(AuthenticationTokenService.COOKIE_NAME));
+        }
+        if (loginThrottle.isEnabled()) {
+            // Over-budget attempts are rejected before the user lookup and password verify
+            http.addFilterBefore(new LoginThrottlingFilter(loginThrottle, "/login", "username", meterRegistry),
+                    UsernamePasswordAuthenticationFilter.class);
+        }
 
 //        http
 //                .authorizeHttpRequests(authorize ->
@@ -94,4 +185,14 @@ public class WebSecurityConfig {
 //                );
         return http.build();
     }
+
+    /**
+     * Sets the token cookie before {@code redirect} commits the response.
+     */
+    private AuthenticationSuccessHandler issuingToken(AuthenticationSuccessHandler redirect) {
+        return (request, response, authentication) -> {
+            authenticationTokenService.writeCookie(request, response, (UserPrincipal) authentication.getPrincipal());
+            redirect.onAuthenticationSuccess(request, response, authentication);
+        };
+    }
 }
@@ -0,0 +1,18 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.security.CurrentUser;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+
+/**
+ * Exposes {@link CurrentUser} to every page as {@code ${currentUser}}, resolved once per request.
+ */
+@ControllerAdvice(annotations = Controller.class)
+public class CurrentUserAdvice {
+
+    @ModelAttribute(CurrentUser.ATTRIBUTE)
+    public CurrentUser currentUser() {
+        return CurrentUser.get();
+    }
+}
@@ -0,0 +1,130 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.dto.BulkJobStatus;
+import com.hendisantika.usermanagement.dto.BulkUserRequest;
+import com.hendisantika.usermanagement.dto.ImportResult;
+import com.hendisantika.usermanagement.dto.UserFileFormat;
+import com.hendisantika.usermanagement.service.UserBulkService;
+import com.hendisantika.usermanagement.service.UserExportService;
+import com.hendisantika.usermanagement.service.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk operations on the user directory, restricted to administrators in {@code WebSecurityConfig}.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/admin/users")
+public class UserAdminController {
+
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final UserImportService userImportService;
+
+    private final UserExportService userExportService;
+
+    private final UserBulkService userBulkService;
+
+    /**
+     * Imports users from a CSV body (header line with {@code firstName,lastName,email,username,password,roles})
+     * or an NDJSON body (one object per line with the same fields). Role names are separated by {@code |}
+     * in CSV or given as an array in NDJSON, and default to {@code USER}. The body is read as a stream.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ImportResult importUsers(HttpServletRequest request) throws IOException {
+        UserFileFormat format = UserFileFormat.fromMediaType(request.getContentType());
+        ImportResult result;
+        try {
+            result = userImportService.importUsers(request.getInputStream(), format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        log.info("Imported {} of {} users in {} ms, {} rejected", result.getImported(), result.getProcessed(),
+                result.getElapsedMillis(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * Streams every user as CSV or NDJSON, optionally restricted to some {@code columns}
+     * (comma separated, default all but the password) and gzip compressed as a {@code .gz} download.
+     * The response is written from a database cursor as it is read, in constant memory.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(name = "format", defaultValue = "csv") String format,
+                                                             @RequestParam(name = "columns", required = false) List<String> columns,
+                                                             @RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+        UserFileFormat fileFormat;
+        List<String> selected;
+        try {
+            fileFormat = UserFileFormat.valueOf(format.toUpperCase(Locale.ROOT));
+            selected = UserExportService.resolveColumns(columns);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        String filename = "users." + fileFormat.name().toLowerCase(Locale.ROOT) + (gzip ? ".gz" : "");
+
+        StreamingResponseBody body = output -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(output, 64 * 1024);
+                long count = userExportService.export(compressed, fileFormat, selected);
+                compressed.finish();
+                log.info("Exported {} users", count);
+            } else {
+                long count = userExportService.export(output, fileFormat, selected);
+                log.info("Exported {} users", count);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : new MediaType(fileFormat.getMediaType(), StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Starts a background job deleting the selected users, or assigning or revoking a role for them.
+     * Answers 202 with the job status, whose {@code Location} reports its progress.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkJobStatus> startBulkJob(@Valid @RequestBody BulkUserRequest request) {
+        BulkJobStatus status;
+        try {
+            status = userBulkService.start(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(status.getId()).toUri();
+        return ResponseEntity.accepted().location(location).body(status);
+    }
+
+    @GetMapping("/bulk/{id}")
+    public BulkJobStatus getBulkJob(@PathVariable("id") String id) {
+        return userBulkService.getStatus(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown bulk job"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.dto.UserPage;
+import com.hendisantika.usermanagement.dto.UserPageResponse;
+import com.hendisantika.usermanagement.dto.UserPatchRequest;
+import com.hendisantika.usermanagement.dto.UserResponse;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.exception.CustomFieldValidationException;
+import com.hendisantika.usermanagement.exception.UsernameOrIdNotFound;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import com.hendisantika.usermanagement.service.UserService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * JSON view of the user directory for other services, with partial updates for admins.
+ * <p>
+ * Responses carry a strong ETag over the {@code id} and {@code lastModifiedOn} of the users they contain.
+ * The tag is computed from the version columns alone, so a matching {@code If-None-Match} is answered
+ * with 304 before any entity is loaded or serialized. A change racing with the load at worst sends fresh
+ * content under the older tag, which the next poll corrects.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/users")
+public class UserApiController {
+
+    private final UserService userService;
+    private final RoleRegistry roleRegistry;
+
+    /**
+     * One keyset page of users in id order; follow {@code nextCursor} with {@code after}.
+     */
+    @GetMapping
+    public ResponseEntity<UserPageResponse> listUsers(@RequestParam(name = "after", required = false) Long after,
+                                                      @RequestParam(name = "size", required = false) Integer size,
+                                                      WebRequest request) {
+        String etag = userService.getUsersPageEtag(after, size);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        UserPage page = userService.getUsersPageWithRoles(after, size);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(UserPageResponse.of(page));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UserResponse> getUser(@PathVariable("id") Long id, WebRequest request) {
+        try {
+            String etag = userService.getUserEtag(id);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            User user = userService.getUserWithRolesById(id);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(etag)
+                    .body(UserResponse.of(user));
+        } catch (UsernameOrIdNotFound e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies the fields present in the body, if the user is still at the body's {@code version}: 409 when it
+     * was changed in between, or when the new username is taken.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<UserResponse> patchUser(@PathVariable("id") Long id,
+                                                  @Valid @RequestBody UserPatchRequest patch) {
+        User changes = new User();
+        changes.setId(id);
+        changes.setVersion(patch.getVersion());
+        changes.setFirstName(patch.getFirstName());
+        changes.setLastName(patch.getLastName());
+        changes.setEmail(patch.getEmail());
+        changes.setUsername(patch.getUsername());
+        if (patch.getRoles() != null) {
+            changes.setRoles(toRoles(patch.getRoles()));
+        }
+        try {
+            userService.updateUser(changes);
+            User user = userService.getUserWithRolesById(id);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(userService.getUserEtag(id))
+                    .body(UserResponse.of(user));
+        } catch (UsernameOrIdNotFound e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (OptimisticLockingFailureException | CustomFieldValidationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error updating user", e);
+        }
+    }
+
+    private Set<Role> toRoles(Set<String> names) {
+        Set<Role> roles = new HashSet<>();
+        for (String name : names) {
+            roles.add(roleRegistry.findByName(name).orElseThrow(() ->
+                    new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown role " + name)));
+        }
+        return roles;
+    }
+}
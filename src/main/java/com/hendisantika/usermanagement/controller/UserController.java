@@ -2,21 +2,25 @@ package com.hendisantika.usermanagement.controller;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 import com.hendisantika.usermanagement.dto.ChangePasswordForm;
+import com.hendisantika.usermanagement.dto.UserPage;
+import com.hendisantika.usermanagement.dto.UserSuggestion;
 import com.hendisantika.usermanagement.entity.Role;
 import com.hendisantika.usermanagement.entity.User;
 import com.hendisantika.usermanagement.exception.CustomFieldValidationException;
+import com.hendisantika.usermanagement.exception.PasswordHashingUnavailableException;
 import com.hendisantika.usermanagement.exception.UsernameOrIdNotFound;
-import com.hendisantika.usermanagement.repository.RoleRepository;
+import com.hendisantika.usermanagement.service.RoleRegistry;
 import com.hendisantika.usermanagement.service.UserService;
+import com.hendisantika.usermanagement.service.UsernameAvailabilityService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.ui.ModelMap;
-import org.springframework.util.CollectionUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,10 +28,11 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
@@ -46,7 +51,11 @@ public class UserController {
 
     private final UserService userService;
 
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
+
+    private final UsernameAvailabilityService usernameAvailabilityService;
+
+    private final UserListFragmentCache userListFragmentCache;
 
     @GetMapping({"/", "/login"})
     public String index() {
@@ -55,33 +64,8 @@ public class UserController {
 
     @GetMapping("/signup")
     public String signup(Model model) {
-        Role userRole;
-        List<Role> roles = new ArrayList<>();
-        List<Role> userRoleList = (List<Role>) roleRepository.findAll();
-        if (CollectionUtils.isEmpty(userRoleList)) {
-            Role role1 = new Role();
-            role1.setId(1L);
-            role1.setName("SUPER ADMIN");
-            role1.setDescription("ROLE SUPER ADMIN");
-
-            Role role2 = new Role();
-            role2.setId(2L);
-            role2.setName("ADMIN");
-            role2.setDescription("ROLE ADMIN");
-
-            Role role3 = new Role();
-            role3.setId(3L);
-            role3.setName("USER");
-            role3.setDescription("ROLE USER");
-            roleRepository.save(role1);
-            roleRepository.save(role2);
-            roleRepository.save(role3);
-//            userRole = roleRepository.findByName("USER");
-//            roles = asList(userRole);
-        }
-        userRole = roleRepository.findByName("USER");
-        roles = Collections.singletonList(userRole);
-        log.info("User Role List {}", userRole);
+        List<Role> roles = signupRoles();
+        log.info("User Role List {}", roles);
         log.info("Accessing signup page");
         model.addAttribute("signup", true);
         model.addAttribute("userForm", new User());
@@ -91,8 +75,7 @@ public class UserController {
 
     @PostMapping("/signup")
     public String signupAction(@Valid @ModelAttribute("userForm") User user, BindingResult result, ModelMap model) {
-        Role userRole = roleRepository.findByName("USER");
-        List<Role> roles = Collections.singletonList(userRole);
+        List<Role> roles = signupRoles();
         log.info("Creating user");
         model.addAttribute("userForm", user);
         model.addAttribute("roles", roles);
@@ -105,6 +88,8 @@ public class UserController {
                 userService.createUser(user);
             } catch (CustomFieldValidationException cfve) {
                 result.rejectValue(cfve.getFieldName(), null, cfve.getMessage());
+            } catch (PasswordHashingUnavailableException e) {
+                throw serviceUnavailable(e);
             } catch (Exception e) {
                 model.addAttribute("formErrorMessage", e.getMessage());
             }
@@ -112,19 +97,81 @@ public class UserController {
         return index();
     }
 
+    /**
+     * Live username check for the signup form. Most answers come from an in-memory filter without a query.
+     */
+    @GetMapping("/signup/username-available")
+    public ResponseEntity<Map<String, Object>> usernameAvailable(@RequestParam("username") String username) {
+        boolean available = !username.isBlank() && usernameAvailabilityService.isAvailable(username);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(Map.of("username", username, "available", available));
+    }
+
+    private List<Role> signupRoles() {
+        return roleRegistry.findByName(RoleRegistry.USER)
+                .map(Collections::singletonList)
+                .orElse(Collections.emptyList());
+    }
+
     private void baseAttributeForUserForm(Model model, User user, String activeTab) {
+        baseAttributeForUserForm(model, user, activeTab, (Long) null);
+    }
+
+    private void baseAttributeForUserForm(Model model, User user, String activeTab, Long after) {
+        String userTable = userListFragmentCache.get(after, () -> userService.getUsersPage(after, null));
+        if (userTable == null) {
+            baseAttributeForUserForm(model, user, activeTab, userService.getUsersPage(after, null));
+            return;
+        }
+        model.addAttribute("userForm", user);
+        model.addAttribute("userTable", userTable);
+        model.addAttribute("roles", roleRegistry.getAll());
+        model.addAttribute(activeTab, "active");
+    }
+
+    private void baseAttributeForUserForm(Model model, User user, String activeTab, UserPage userPage) {
         model.addAttribute("userForm", user);
-        model.addAttribute("userList", userService.getAllUsers());
-        model.addAttribute("roles", roleRepository.findAll());
+        model.addAttribute("userPage", userPage);
+        model.addAttribute("userList", userPage.getContent());
+        model.addAttribute("roles", roleRegistry.getAll());
         model.addAttribute(activeTab, "active");
     }
 
     @GetMapping("/userForm")
-    public String userForm(Model model) {
-        baseAttributeForUserForm(model, new User(), TAB_LIST);
+    public String userForm(Model model, @RequestParam(name = "after", required = false) Long after) {
+        baseAttributeForUserForm(model, new User(), TAB_LIST, after);
         return "user-form/user-view";
     }
 
+    /**
+     * The user list restricted to a search; results are not paginated. A blank search, as the form submits
+     * when cleared, shows the paginated list.
+     */
+    @GetMapping(value = "/userForm", params = "q")
+    public String searchUserForm(Model model, @RequestParam("q") String query,
+                                 @RequestParam(name = "after", required = false) Long after) {
+        if (query.isBlank()) {
+            return userForm(model, after);
+        }
+        List<User> users = userService.searchUsers(query, null);
+        baseAttributeForUserForm(model, new User(), TAB_LIST, new UserPage(users, null, null, users.size()));
+        model.addAttribute("query", query);
+        return "user-form/user-view";
+    }
+
+    /**
+     * Type-ahead suggestions for the user list search box.
+     */
+    @GetMapping("/userForm/search")
+    public ResponseEntity<List<UserSuggestion>> searchUsers(@RequestParam("q") String query,
+                                                            @RequestParam(name = "size", required = false) Integer size) {
+        List<UserSuggestion> suggestions = userService.searchUsers(query, size).stream()
+                .map(UserSuggestion::of)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(suggestions);
+    }
+
     @PostMapping("/userForm")
     public String createUser(@Valid @ModelAttribute("userForm") User user, BindingResult result, Model model) {
         if (result.hasErrors()) {
@@ -138,6 +185,8 @@ public class UserController {
             } catch (CustomFieldValidationException cfve) {
                 result.rejectValue(cfve.getFieldName(), null, cfve.getMessage());
                 baseAttributeForUserForm(model, user, TAB_FORM);
+            } catch (PasswordHashingUnavailableException e) {
+                throw serviceUnavailable(e);
             } catch (Exception e) {
                 model.addAttribute("formErrorMessage", e.getMessage());
                 baseAttributeForUserForm(model, user, TAB_FORM);
@@ -152,7 +201,7 @@ public class UserController {
     @GetMapping("/editUser/{id}")
     public String getEditUserForm(Model model, @PathVariable(name = "id") Long id) {
         try {
-            User userToEdit = userService.getUserById(id);
+            User userToEdit = userService.getUserWithRolesById(id);
             baseAttributeForUserForm(model, userToEdit, TAB_FORM);
             model.addAttribute("editMode", "true");
             model.addAttribute("passwordForm", new ChangePasswordForm(id));
@@ -202,7 +251,7 @@ public class UserController {
         } catch (UsernameOrIdNotFound uoin) {
             model.addAttribute("listErrorMessage", uoin.getMessage());
         }
-        return userForm(model);
+        return userForm(model, null);
     }
 
 
@@ -218,12 +267,19 @@ public class UserController {
             }
             userService.changePassword(form);
             log.info("Change password successfully.");
+        } catch (PasswordHashingUnavailableException e) {
+            throw serviceUnavailable(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
         return ResponseEntity.ok("Success");
     }
 
+    private ResponseStatusException serviceUnavailable(PasswordHashingUnavailableException e) {
+        log.warn("Password hashing saturated: {}", e.getMessage());
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+    }
+
 
 
 }
\ No newline at end of file
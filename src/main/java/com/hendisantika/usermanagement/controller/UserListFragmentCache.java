@@ -0,0 +1,129 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hendisantika.usermanagement.dto.UserPage;
+import com.hendisantika.usermanagement.security.CurrentUser;
+import com.hendisantika.usermanagement.service.UserDataVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Rendered {@code user-form/user-table.html} fragments, keyed by the {@link UserDataVersion} they were
+ * built from, the page cursor and the {@link CurrentUser} flags the template reads. A repeated list view
+ * between two writes skips both the page query and the template.
+ * <p>
+ * Viewers who may edit their own row but are not admins are also keyed by username, as the table shows
+ * them an edit link on that row. Entries of older versions can never be hit again and are dropped as soon
+ * as a newer version is seen. The version only counts the writes of this node: entries also expire after
+ * the ttl, after which other nodes' writes show.
+ */
+@Component
+public class UserListFragmentCache {
+
+    static final String TEMPLATE = "user-form/user-table";
+
+    private final SpringTemplateEngine templateEngine;
+    private final ApplicationContext applicationContext;
+    private final UserDataVersion userDataVersion;
+    private final Cache<String, String> cache;
+
+    private volatile long lastVersion;
+
+    public UserListFragmentCache(SpringTemplateEngine templateEngine, ApplicationContext applicationContext,
+                                 UserDataVersion userDataVersion,
+                                 @Value("${user-management.user-list.fragment-cache.maximum-size:500}") long maximumSize,
+                                 @Value("${user-management.user-list.fragment-cache.ttl:1m}") Duration ttl) {
+        this.templateEngine = templateEngine;
+        this.applicationContext = applicationContext;
+        this.userDataVersion = userDataVersion;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The rendered table for the page after {@code after}, loading it with {@code loader} on a miss.
+     *
+     * @return the HTML, or {@code null} outside of an authenticated web request, where the page has to
+     * render the table itself
+     */
+    public String get(Long after, Supplier<UserPage> loader) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(attributes instanceof ServletRequestAttributes) || authentication == null) {
+            return null;
+        }
+        ServletRequestAttributes servletAttributes = (ServletRequestAttributes) attributes;
+        if (servletAttributes.getResponse() == null) {
+            return null;
+        }
+
+        // Taken before the query: a write racing with the render leaves this entry behind, never ahead
+        long version = userDataVersion.current();
+        if (version != lastVersion) {
+            lastVersion = version;
+            cache.invalidateAll();
+        }
+        if (userDataVersion.mayLagOnReplicas()) {
+            // A replica may still answer with the table before the latest write, not to be kept under its version
+            return render(loader.get(), servletAttributes.getRequest(), servletAttributes.getResponse());
+        }
+        return cache.get(key(version, after, CurrentUser.get()),
+                k -> render(loader.get(), servletAttributes.getRequest(), servletAttributes.getResponse()));
+    }
+
+    private static String key(long version, Long after, CurrentUser user) {
+        // The flags of user-table.html's tbody: the username only matters to those editing their own row
+        boolean admin = user.isAdmin();
+        boolean editOwn = user.hasRole("ROLE_USER");
+        return version + "|" + after + "|" + admin + "|" + editOwn
+                + (!admin && editOwn ? "|" + user.getUsername() : "");
+    }
+
+    private String render(UserPage page, HttpServletRequest request, HttpServletResponse response) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("userPage", page);
+        variables.put("userList", page.getContent());
+        variables.put(CurrentUser.ATTRIBUTE, CurrentUser.get());
+        // Same evaluation context as a view rendered by Spring MVC
+        variables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(applicationContext, null));
+        WebContext context = new WebContext(
+                JakartaServletWebApplication.buildApplication(request.getServletContext()).buildExchange(request, response),
+                RequestContextUtils.getLocale(request), variables);
+        return templateEngine.process(TEMPLATE, context);
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+}
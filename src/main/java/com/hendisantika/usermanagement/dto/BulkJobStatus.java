@@ -0,0 +1,39 @@
+package com.hendisantika.usermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk job: {@code processed} of the {@code total} selected users have been handled so far,
+ * and {@code affected} of them were actually deleted or had their roles changed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkJobStatus {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+
+    private BulkUserRequest.Action action;
+
+    private State state;
+
+    private long total;
+
+    private long processed;
+
+    private long affected;
+
+    private LocalDateTime startedOn;
+
+    private long elapsedMillis;
+
+    private String error;
+}
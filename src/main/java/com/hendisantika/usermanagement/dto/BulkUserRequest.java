@@ -0,0 +1,36 @@
+package com.hendisantika.usermanagement.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A bulk job over a set of users, given either as {@code ids} or as a filter: users whose username starts
+ * with {@code usernamePrefix} and/or who have the role {@code withRole}. An empty selection is refused.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkUserRequest {
+
+    public enum Action {
+        DELETE, ASSIGN_ROLE, REVOKE_ROLE
+    }
+
+    @NotNull
+    private Action action;
+
+    /**
+     * Role name to assign or revoke, such as {@code ADMIN}.
+     */
+    private String role;
+
+    private List<Long> ids;
+
+    private String usernamePrefix;
+
+    private String withRole;
+}
@@ -0,0 +1,39 @@
+package com.hendisantika.usermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk user import. {@code errors} lists the rejected rows up to a configured limit,
+ * {@code errorsTruncated} tells whether more rows failed than are listed.
+ */
+@Data
+@NoArgsConstructor
+public class ImportResult {
+    private int processed;
+
+    private int imported;
+
+    private int failed;
+
+    private long elapsedMillis;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    private boolean errorsTruncated;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private long line;
+
+        private String username;
+
+        private String message;
+    }
+}
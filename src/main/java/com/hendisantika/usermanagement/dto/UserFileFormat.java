@@ -0,0 +1,34 @@
+package com.hendisantika.usermanagement.dto;
+
+import org.springframework.http.MediaType;
+
+/**
+ * File formats accepted by the bulk user import and produced by the export.
+ */
+public enum UserFileFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final MediaType mediaType;
+
+    UserFileFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the content type is neither CSV nor NDJSON
+     */
+    public static UserFileFormat fromMediaType(String contentType) {
+        MediaType requested = MediaType.parseMediaType(contentType);
+        for (UserFileFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(requested)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported format: " + contentType);
+    }
+}
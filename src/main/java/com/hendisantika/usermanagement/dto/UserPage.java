@@ -0,0 +1,29 @@
+package com.hendisantika.usermanagement.dto;
+
+import com.hendisantika.usermanagement.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of users. {@code nextCursor} is the id to pass as {@code after}
+ * to fetch the following page, or {@code null} when this is the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPage {
+    private List<User> content;
+
+    private Long cursor;
+
+    private Long nextCursor;
+
+    private int size;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.hendisantika.usermanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * JSON form of a {@link UserPage}: pass {@code nextCursor} as {@code after} to read the following page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPageResponse {
+    private List<UserResponse> content;
+
+    private Long cursor;
+
+    private Long nextCursor;
+
+    private int size;
+
+    public static UserPageResponse of(UserPage page) {
+        return new UserPageResponse(page.getContent().stream().map(UserResponse::of).collect(Collectors.toList()),
+                page.getCursor(), page.getNextCursor(), page.getSize());
+    }
+}
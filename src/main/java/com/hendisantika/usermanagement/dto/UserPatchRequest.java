@@ -0,0 +1,40 @@
+package com.hendisantika.usermanagement.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Body of {@code PATCH /api/users/{id}}: absent fields are left as they are. {@code version} is the one
+ * read with the user, the update is refused when the user has changed since.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPatchRequest {
+    @NotNull
+    private Long version;
+
+    @Size(min = 2, max = 15, message = "Size rules are not followed")
+    private String firstName;
+
+    @Size(min = 2, max = 15, message = "Size rules are not followed")
+    private String lastName;
+
+    @Pattern(regexp = ".*\\S.*", message = "Email must not be blank")
+    private String email;
+
+    @Pattern(regexp = ".*\\S.*", message = "Username must not be blank")
+    private String username;
+
+    /**
+     * Role names, such as {@code USER}; replaces the whole role set.
+     */
+    @Size(min = 1)
+    private Set<String> roles;
+}
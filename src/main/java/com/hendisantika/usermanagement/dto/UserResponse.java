@@ -0,0 +1,50 @@
+package com.hendisantika.usermanagement.dto;
+
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A user as exposed by the JSON API: never the password hash. Roles must be initialized.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserResponse {
+    private Long id;
+
+    private String username;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    private List<String> roles;
+
+    private LocalDateTime createdOn;
+
+    private LocalDateTime lastModifiedOn;
+
+    /**
+     * To send back with a {@code PATCH}.
+     */
+    private Long version;
+
+    public static UserResponse of(User user) {
+        List<String> roles = user.getRoles() == null ? List.of() : user.getRoles().stream()
+                .map(Role::getName)
+                .sorted()
+                .collect(Collectors.toList());
+        return new UserResponse(user.getId(), user.getUsername(), user.getFirstName(), user.getLastName(),
+                user.getEmail(), roles, user.getCreatedOn(), user.getLastModifiedOn(),
+                user.getVersion());
+    }
+}
@@ -0,0 +1,29 @@
+package com.hendisantika.usermanagement.dto;
+
+import com.hendisantika.usermanagement.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One type-ahead result of the user search.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSuggestion {
+    private Long id;
+
+    private String username;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    public static UserSuggestion of(User user) {
+        return new UserSuggestion(user.getId(), user.getUsername(), user.getFirstName(), user.getLastName(),
+                user.getEmail());
+    }
+}
@@ -0,0 +1,14 @@
+package com.hendisantika.usermanagement.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the columns that identify a version of a user row, enough to compute its ETag
+ * without loading the entity.
+ */
+public interface UserVersion {
+
+    Long getId();
+
+    LocalDateTime getLastModifiedOn();
+}
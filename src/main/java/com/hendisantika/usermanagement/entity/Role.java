@@ -5,10 +5,14 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 
 import java.io.Serializable;
@@ -22,9 +26,13 @@ import java.io.Serializable;
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_role_name", columnNames = "name"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Role.CACHE_REGION)
 public class Role implements Serializable {
     private static final long serialVersionUID = 6353963609310956029L;
 
+    public static final String CACHE_REGION = "role";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO, generator = "native")
     @GenericGenerator(name = "native", strategy = "native")
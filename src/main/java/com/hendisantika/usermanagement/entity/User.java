@@ -7,7 +7,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -26,11 +32,33 @@ import java.util.Set;
 @NoArgsConstructor
 @EqualsAndHashCode
 @EntityListeners(AuditingEntityListener.class)
-@Table(name = "users")  // Change the table name here
+// Updates write only the columns that changed
+@DynamicUpdate
+// Second-level cache, see SecondLevelCacheConfig; username lookups resolve the id from the natural id cache
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@NaturalIdCache(region = User.USERNAME_CACHE_REGION)
+@NamedEntityGraph(name = User.WITH_ROLES, attributeNodes = @NamedAttributeNode("roles"))
+@Table(name = "users",  // Change the table name here
+        uniqueConstraints = @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+        // Mirrors the Flyway migrations, which own the schema
+        indexes = {
+                @Index(name = "idx_users_email", columnList = "email"),
+                @Index(name = "idx_users_created_on", columnList = "created_on")
+        })
 public class User implements Serializable {
 
     private static final long serialVersionUID = 1671417246199538663L;
 
+    public static final String WITH_ROLES = "User.withRoles";
+
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+
+    public static final String CACHE_REGION = "user";
+
+    public static final String ROLES_CACHE_REGION = "user.roles";
+
+    public static final String USERNAME_CACHE_REGION = "user.username";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO, generator = "native")
     @GenericGenerator(name = "native", strategy = "native")
@@ -52,6 +80,7 @@ public class User implements Serializable {
 
     @Column
     @NotBlank
+    @NaturalId(mutable = true)
     private String username;
 
     @Column
@@ -62,10 +91,14 @@ public class User implements Serializable {
     private String confirmPassword;
 
     @Size(min = 1)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.ROLES_CACHE_REGION)
     @JoinTable(name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "role_id"))
+            inverseJoinColumns = @JoinColumn(name = "role_id"),
+            indexes = @Index(name = "idx_user_roles_user_id", columnList = "user_id"))
     private Set<Role> roles;
 
     @CreatedDate
@@ -73,4 +106,10 @@ public class User implements Serializable {
 
     @LastModifiedDate
     private LocalDateTime lastModifiedOn;
+
+    /**
+     * Optimistic lock, incremented by every update of the row or of its roles.
+     */
+    @Version
+    private Long version;
 }
@@ -0,0 +1,33 @@
+package com.hendisantika.usermanagement.event;
+
+import com.hendisantika.usermanagement.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by {@link com.hendisantika.usermanagement.service.UserService} after a user has been written,
+ * so that in-memory views of user data can be kept in sync.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED, PASSWORD_CHANGED, DELETED
+    }
+
+    private final Type type;
+
+    private final User user;
+
+    /**
+     * Username before the change, differs from {@code user.getUsername()} when it was renamed.
+     */
+    private final String previousUsername;
+
+    public UserChangedEvent(Type type, User user) {
+        this(type, user, user.getUsername());
+    }
+}
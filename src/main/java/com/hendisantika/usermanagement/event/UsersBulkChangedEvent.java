@@ -0,0 +1,29 @@
+package com.hendisantika.usermanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Published by {@link com.hendisantika.usermanagement.service.UserBulkService} after each chunk of a bulk
+ * job has been committed. The statements are set-based, so no entities are loaded: listeners get the id and
+ * username of every user in the chunk instead of one {@link UserChangedEvent} per user.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UsersBulkChangedEvent {
+
+    public enum Type {
+        DELETED, ROLES_CHANGED
+    }
+
+    private final Type type;
+
+    /**
+     * Username by id.
+     */
+    private final Map<Long, String> usernames;
+}
@@ -0,0 +1,18 @@
+package com.hendisantika.usermanagement.exception;
+
+/**
+ * Thrown when the password hashing executor is saturated and a hash or verify cannot be scheduled in time.
+ * Callers should surface it as 503 Service Unavailable.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = -2291585376617433017L;
+
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,108 @@
+package com.hendisantika.usermanagement.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Wraps a connection so that the execution of a data-changing statement ({@code insert}, {@code update},
+ * {@code delete} or {@code merge}) is reported, telling the transactions that wrote from those that only read.
+ */
+final class DmlDetectingConnection {
+
+    private static final String[] DML = {"insert", "update", "delete", "merge"};
+
+    private DmlDetectingConnection() {
+    }
+
+    static Connection wrap(Connection connection, Runnable onDml) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = call(target, method, args);
+            if (result instanceof Statement) {
+                // prepareStatement and prepareCall take the SQL first, createStatement gets it at execution
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return statement((Statement) result, sql, onDml);
+            }
+            return result;
+        });
+    }
+
+    static boolean isDml(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        int start = 0;
+        while (start < sql.length()) {
+            if (Character.isWhitespace(sql.charAt(start))) {
+                start++;
+            } else if (sql.startsWith("/*", start)) {
+                int end = sql.indexOf("*/", start + 2);
+                start = end < 0 ? sql.length() : end + 2;
+            } else {
+                break;
+            }
+        }
+        String head = sql.substring(start, Math.min(sql.length(), start + 7)).toLowerCase(Locale.ROOT);
+        for (String keyword : DML) {
+            if (head.startsWith(keyword)
+                    && (head.length() == keyword.length() || !Character.isLetter(head.charAt(keyword.length())))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Statement statement(Statement statement, String preparedSql, Runnable onDml) {
+        Handler handler = (target, method, args) -> {
+            String name = method.getName();
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            // A batch of createStatement carries its SQL in addBatch
+            if ((name.startsWith("execute") || "addBatch".equals(name)) && isDml(sql)) {
+                onDml.run();
+            }
+            return call(target, method, args);
+        };
+        if (statement instanceof CallableStatement) {
+            return proxy(CallableStatement.class, (CallableStatement) statement, handler);
+        }
+        if (statement instanceof PreparedStatement) {
+            return proxy(PreparedStatement.class, (PreparedStatement) statement, handler);
+        }
+        return proxy(Statement.class, statement, handler);
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            // Identity semantics, as the drivers' own objects have
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return handler.handle(target, method, args);
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(DmlDetectingConnection.class.getClassLoader(),
+                new Class<?>[]{type}, invocationHandler));
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,175 @@
+package com.hendisantika.usermanagement.jdbc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hendisantika.usermanagement.security.CurrentUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sends the connections of read-only transactions to the replicas, round robin, and everything else to the
+ * primary. Must sit behind a {@link LazyConnectionDataSourceProxy}: the transaction managers ask for a
+ * connection before the transaction is marked read-only, the lazy proxy defers it to the first statement.
+ * <p>
+ * Read your writes: once a transaction that changed data commits, the client that ran it (its username, and the
+ * remote address for anonymous requests such as signups) reads from the primary for {@code maxLag}, which
+ * should exceed the usual replication lag. The marks are kept in memory, so they only hold on the node that
+ * took the write. A replica that fails to hand out a connection is skipped for a few seconds, its reads
+ * going to the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final String USER_KEY = "user:";
+    private static final String ADDRESS_KEY = "address:";
+    private static final long RETRY_DOWN_REPLICA_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLongArray downUntil;
+    private final Cache<String, Boolean> recentWriters;
+
+    private final Counter readWrite;
+    private final Counter reads;
+    private final Counter stickyReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration maxLag,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.downUntil = new AtomicLongArray(replicas.size());
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(maxLag)
+                .maximumSize(100_000)
+                .build();
+        this.readWrite = route(meterRegistry, "primary", "read-write");
+        this.reads = route(meterRegistry, "replica", "read");
+        this.stickyReads = route(meterRegistry, "primary", "read-your-writes");
+        this.fallbackReads = route(meterRegistry, "primary", "replica-unavailable");
+    }
+
+    private static Counter route(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("user.datasource.connections")
+                .description("Connections handed out by the replica routing data source")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(ConnectionOpener opener) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readWrite.increment();
+            return rememberWriter(opener.open(primary));
+        }
+        int replica = chooseReplica();
+        if (replica < 0) {
+            return opener.open(primary);
+        }
+        try {
+            return opener.open(replicas.get(replica));
+        } catch (SQLException e) {
+            downUntil.set(replica, System.nanoTime() + RETRY_DOWN_REPLICA_NANOS);
+            fallbackReads.increment();
+            log.warn("Replica {} unavailable, reading from the primary: {}", replica, e.getMessage());
+            return opener.open(primary);
+        }
+    }
+
+    /**
+     * @return the index of the replica to read from, or -1 for the primary
+     */
+    private int chooseReplica() {
+        if (wroteRecently()) {
+            stickyReads.increment();
+            return -1;
+        }
+        long now = System.nanoTime();
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = Math.floorMod(next.getAndIncrement(), replicas.size());
+            long until = downUntil.get(candidate);
+            if (until == 0 || now - until >= 0) {
+                reads.increment();
+                return candidate;
+            }
+        }
+        fallbackReads.increment();
+        return -1;
+    }
+
+    /**
+     * Marks the client as a writer once the transaction commits, if it ran a data-changing statement: a
+     * read-write transaction that only read, such as a login, leaves the client on the replicas.
+     */
+    private Connection rememberWriter(Connection connection) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return connection;
+        }
+        CurrentUser user = CurrentUser.get();
+        String key = user.isAuthenticated() ? USER_KEY + user.getUsername() : addressKey();
+        if (key == null) {
+            return connection;
+        }
+        AtomicBoolean wrote = new AtomicBoolean();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (wrote.get()) {
+                    recentWriters.put(key, Boolean.TRUE);
+                }
+            }
+        });
+        return DmlDetectingConnection.wrap(connection, () -> wrote.set(true));
+    }
+
+    private boolean wroteRecently() {
+        CurrentUser user = CurrentUser.get();
+        if (user.isAuthenticated() && recentWriters.getIfPresent(USER_KEY + user.getUsername()) != null) {
+            return true;
+        }
+        String address = addressKey();
+        return address != null && recentWriters.getIfPresent(address) != null;
+    }
+
+    private static String addressKey() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return ADDRESS_KEY + ((ServletRequestAttributes) attributes).getRequest().getRemoteAddr();
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+}
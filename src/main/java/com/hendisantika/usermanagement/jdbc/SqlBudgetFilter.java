@@ -0,0 +1,87 @@
+package com.hendisantika.usermanagement.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Records the SQL of each HTTP request as {@code sql.request.*} metrics tagged with the matched URI
+ * pattern, and logs a warning when a request issues more than {@code maxStatements} statements or
+ * repeats one statement more than {@code maxRepeats} times, the shape of an N+1 query.
+ */
+@Slf4j
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    private static final int LOGGED_SQL_LENGTH = 200;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxStatements;
+
+    private final int maxRepeats;
+
+    public SqlBudgetFilter(MeterRegistry meterRegistry, int maxStatements, int maxRepeats) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.maxRepeats = maxRepeats;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statistics.stop();
+            report(request, statistics);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+
+        DistributionSummary.builder("sql.request.statements").tags(tags).register(meterRegistry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder("sql.request.rows").tags(tags).register(meterRegistry)
+                .record(statistics.getRows());
+        Timer.builder("sql.request.time").tags(tags).register(meterRegistry)
+                .record(statistics.getTime());
+
+        if (statistics.getStatements() > maxStatements) {
+            exceeded(tags, "statements");
+            log.warn("{} {} issued {}, over the budget of {} statements", request.getMethod(), request.getRequestURI(),
+                    statistics, maxStatements);
+        }
+        Optional<Map.Entry<String, Integer>> repeated = statistics.getMostRepeated();
+        if (repeated.isPresent() && repeated.get().getValue() > maxRepeats) {
+            exceeded(tags, "repeats");
+            log.warn("Possible N+1 query on {} {}: {} executions of [{}]", request.getMethod(), request.getRequestURI(),
+                    repeated.get().getValue(), abbreviate(repeated.get().getKey()));
+        }
+    }
+
+    private void exceeded(Tags tags, String reason) {
+        Counter.builder("sql.request.budget.exceeded").tags(tags).tag("reason", reason).register(meterRegistry)
+                .increment();
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() <= LOGGED_SQL_LENGTH ? sql : sql.substring(0, LOGGED_SQL_LENGTH) + "...";
+    }
+}
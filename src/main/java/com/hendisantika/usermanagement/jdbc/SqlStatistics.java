@@ -0,0 +1,117 @@
+package com.hendisantika.usermanagement.jdbc;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * SQL executed by the current thread between {@link #start()} and {@link #stop()}: statements, rows
+ * read and time spent in the driver, recorded by {@link StatementCountingDataSource}.
+ * <p>
+ * Scopes nest: an inner scope (say the request filter) adds its counts to the enclosing one (say a
+ * test) when it stops. Work handed to other threads is not counted. Statements executed outside of
+ * any scope cost one thread-local lookup.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    // Bounds the memory of a scope that generates its SQL text
+    private static final int MAX_DISTINCT_STATEMENTS = 200;
+
+    private final SqlStatistics parent;
+
+    private final Map<String, Integer> executions = new HashMap<>();
+
+    private long statements;
+
+    private long rows;
+
+    private long nanos;
+
+    private SqlStatistics(SqlStatistics parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Opens a scope on the current thread, to be closed with {@link #stop()} in a {@code finally} block.
+     */
+    public static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Closes this scope, which must be the innermost one, and restores the enclosing scope.
+     */
+    public void stop() {
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("SQL statistics scopes must be stopped in reverse order");
+        }
+        if (parent == null) {
+            CURRENT.remove();
+            return;
+        }
+        CURRENT.set(parent);
+        parent.statements += statements;
+        parent.rows += rows;
+        parent.nanos += nanos;
+        executions.forEach(parent::executed);
+    }
+
+    static void statementExecuted(String sql, long elapsedNanos) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+            statistics.nanos += elapsedNanos;
+            statistics.executed(sql, 1);
+        }
+    }
+
+    static void rowRead() {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.rows++;
+        }
+    }
+
+    private void executed(String sql, int count) {
+        if (sql != null && (executions.size() < MAX_DISTINCT_STATEMENTS || executions.containsKey(sql))) {
+            executions.merge(sql, count, Integer::sum);
+        }
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public Duration getTime() {
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * Executions per statement text; prepared statements are counted once per execution.
+     */
+    public Map<String, Integer> getExecutions() {
+        return Collections.unmodifiableMap(executions);
+    }
+
+    /**
+     * The statement executed most often, the usual signature of an N+1 query.
+     */
+    public Optional<Map.Entry<String, Integer>> getMostRepeated() {
+        return executions.entrySet().stream().max(Map.Entry.comparingByValue());
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements, " + rows + " rows, " + getTime().toMillis() + " ms";
+    }
+}
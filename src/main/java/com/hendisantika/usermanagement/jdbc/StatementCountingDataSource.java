@@ -0,0 +1,147 @@
+package com.hendisantika.usermanagement.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps the connections of a {@link DataSource} so that every statement execution, its driver time and
+ * every row read through a {@link ResultSet} are reported to the thread's {@link SqlStatistics}.
+ * <p>
+ * Being a {@link DelegatingDataSource}, it stays transparent to the pool metrics and health checks,
+ * which unwrap it.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, obtainTargetDataSource().getConnection(), new ConnectionHandler());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, obtainTargetDataSource().getConnection(username, password), new ConnectionHandler());
+    }
+
+    private static <T> T proxy(Class<T> type, T target, TargetHandler handler) {
+        handler.target = target;
+        return type.cast(Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, handler));
+    }
+
+    private static Statement statement(Statement statement, String sql) {
+        StatementHandler handler = new StatementHandler(sql);
+        if (statement instanceof CallableStatement) {
+            return proxy(CallableStatement.class, (CallableStatement) statement, handler);
+        }
+        if (statement instanceof PreparedStatement) {
+            return proxy(PreparedStatement.class, (PreparedStatement) statement, handler);
+        }
+        return proxy(Statement.class, statement, handler);
+    }
+
+    private abstract static class TargetHandler implements InvocationHandler {
+
+        Object target;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // Identity semantics, as the drivers' own objects have
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return handle(method, args);
+            }
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static final class ConnectionHandler extends TargetHandler {
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = call(method, args);
+            if (result instanceof Statement) {
+                // prepareStatement and prepareCall take the SQL first, createStatement gets it at execution
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return statement((Statement) result, sql);
+            }
+            return result;
+        }
+    }
+
+    private static final class StatementHandler extends TargetHandler {
+
+        private final String preparedSql;
+
+        private String batchSql;
+
+        private StatementHandler(String preparedSql) {
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("addBatch".equals(name) && args != null && args.length == 1) {
+                batchSql = (String) args[0];
+            }
+            if (!name.startsWith("execute")) {
+                Object result = call(method, args);
+                return result instanceof ResultSet ? resultSet((ResultSet) result) : result;
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+                    : preparedSql != null ? preparedSql : batchSql;
+            long start = System.nanoTime();
+            try {
+                Object result = call(method, args);
+                return result instanceof ResultSet ? resultSet((ResultSet) result) : result;
+            } finally {
+                // A batch is one round trip however many rows it carries
+                SqlStatistics.statementExecuted(sql, System.nanoTime() - start);
+            }
+        }
+
+        private static ResultSet resultSet(ResultSet resultSet) {
+            return proxy(ResultSet.class, resultSet, new ResultSetHandler());
+        }
+    }
+
+    private static final class ResultSetHandler extends TargetHandler {
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = call(method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                SqlStatistics.rowRead();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.hendisantika.usermanagement.repository;
+
+import com.hendisantika.usermanagement.entity.User;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * User operations on the Hibernate second-level cache, mixed into {@link UserRepository}.
+ */
+public interface UserCacheRepository {
+
+    /**
+     * The user with the given username, looked up by natural id. Once cached, the username resolves to the
+     * id, the id to the user and its roles, all without a statement. The roles are loaded lazily, so read
+     * them in the same transaction.
+     */
+    Optional<User> loadByUsername(String username);
+
+    /**
+     * Evicts the cached roles of the given users, after their {@code user_roles} rows were changed by a
+     * set-based statement.
+     */
+    void evictRoles(Collection<Long> userIds);
+}
@@ -0,0 +1,45 @@
+package com.hendisantika.usermanagement.repository;
+
+import com.hendisantika.usermanagement.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Optional;
+
+class UserCacheRepositoryImpl implements UserCacheRepository {
+
+    private static final String ROLES = User.class.getName() + ".roles";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Read-only like the other repository methods; outside a transaction the unwrapped session would be
+     * closed as soon as {@code unwrap} returns.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> loadByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(username);
+    }
+
+    @Override
+    public void evictRoles(Collection<Long> userIds) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (Long userId : userIds) {
+            cache.evictCollectionData(ROLES, userId);
+        }
+    }
+}
@@ -1,17 +1,177 @@
 package com.hendisantika.usermanagement.repository;
 
+import com.hendisantika.usermanagement.dto.UserVersion;
 import com.hendisantika.usermanagement.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Created by IntelliJ IDEA.
  * Project : user-management
  */
 @Repository
-public interface UserRepository extends CrudRepository<User, Long> {
+public interface UserRepository extends CrudRepository<User, Long>, UserCacheRepository {
 
     Optional<User> findByUsername(String username);
-}
\ No newline at end of file
+
+    boolean existsByUsername(String username);
+
+    /**
+     * The subset of {@code usernames} that already exists, in one statement.
+     */
+    @Query("select u.username from User u where u.username in :usernames")
+    Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Every user in id order as a cursor-backed stream; must be consumed and closed inside a transaction.
+     * The fetch size lets the driver read the result in pages (PostgreSQL only does so with autocommit off),
+     * and read-only entities skip the dirty-checking snapshot.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAllByOrderByIdAsc();
+
+    /**
+     * Every username, without loading the users; must be consumed and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.username from User u")
+    Stream<String> streamAllUsernames();
+
+    /**
+     * {@code [id, firstName, lastName, username, email]} of every user, for the in-memory search index;
+     * must be consumed and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.id, u.firstName, u.lastName, u.username, u.email from User u")
+    Stream<Object[]> streamAllSearchFields();
+
+    /**
+     * {@code [userId, roleId]} pairs for the given users, without loading the users or roles.
+     */
+    @Query("select u.id, r.id from User u join u.roles r where u.id in :ids")
+    List<Object[]> findRoleIdsByUserIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Login lookup: the user and its roles in a single statement.
+     */
+    @EntityGraph(User.WITH_ROLES)
+    Optional<User> findWithRolesByUsername(String username);
+
+    @EntityGraph(User.WITH_ROLES)
+    Optional<User> findWithRolesById(Long id);
+
+    /**
+     * Loads a known set of users with their roles in one statement. Used as the second step of a
+     * keyset page, since a fetch join combined with a row limit would be paginated in memory.
+     */
+    @EntityGraph(User.WITH_ROLES)
+    List<User> findWithRolesByIdIn(Collection<Long> ids, Sort sort);
+
+    /**
+     * Keyset (seek) page: users whose id is strictly greater than the given cursor, in id order.
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Version columns of one user, for conditional requests.
+     */
+    Optional<UserVersion> findVersionById(Long id);
+
+    /**
+     * Version columns of the same rows as {@link #findByIdGreaterThanOrderByIdAsc(Long, Limit)}.
+     */
+    List<UserVersion> findVersionsByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // ---------------- Bulk jobs ----------------
+    // Set-based statements over one chunk of ids, see UserBulkService. They bypass the persistence context,
+    // so the modifying ones clear it. The native ones declare the table they change, so that Hibernate evicts
+    // the second-level cache regions of that table only, instead of the whole cache. No entity maps user_roles:
+    // the cached roles of a chunk are evicted by UserBulkService, see evictRoles.
+
+    /**
+     * Next {@code limit} ids after {@code after} whose username starts with {@code usernamePattern} (a LIKE
+     * pattern escaped with {@code !}) and that have the role {@code roleId}; a {@code null} criterion matches all.
+     */
+    @Query("select u.id from User u where u.id > :after"
+            + " and (:usernamePattern is null or u.username like :usernamePattern escape '!')"
+            + " and (:roleId is null or exists (select 1 from u.roles r where r.id = :roleId))"
+            + " order by u.id")
+    List<Long> findIdsByFilter(@Param("after") Long after, @Param("usernamePattern") String usernamePattern,
+                               @Param("roleId") Long roleId, Limit limit);
+
+    @Query("select count(u) from User u"
+            + " where (:usernamePattern is null or u.username like :usernamePattern escape '!')"
+            + " and (:roleId is null or exists (select 1 from u.roles r where r.id = :roleId))")
+    long countByFilter(@Param("usernamePattern") String usernamePattern, @Param("roleId") Long roleId);
+
+    /**
+     * {@code [id, username]} of the given users, without loading them.
+     */
+    @Query("select u.id, u.username from User u where u.id in :ids")
+    List<Object[]> findUsernamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "delete from user_roles where user_id in (:ids)", nativeQuery = true)
+    int deleteRolesOfUsers(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from User u where u.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Bumps {@code version} and {@code lastModifiedOn} of the given users that do not have the role yet;
+     * run before {@link #insertRole(Collection, Long)}.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "update users set version = version + 1, last_modified_on = :now where id in (:ids)"
+            + " and not exists (select 1 from user_roles ur where ur.user_id = users.id and ur.role_id = :roleId)",
+            nativeQuery = true)
+    int touchUsersWithoutRole(@Param("ids") Collection<Long> ids, @Param("roleId") Long roleId,
+                              @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "insert into user_roles (user_id, role_id) select u.id, :roleId from users u where u.id in (:ids)"
+            + " and not exists (select 1 from user_roles ur where ur.user_id = u.id and ur.role_id = :roleId)",
+            nativeQuery = true)
+    int insertRole(@Param("ids") Collection<Long> ids, @Param("roleId") Long roleId);
+
+    /**
+     * Bumps {@code version} and {@code lastModifiedOn} of the given users that have the role; run before
+     * {@link #deleteRole(Collection, Long)}.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "update users set version = version + 1, last_modified_on = :now where id in (:ids)"
+            + " and exists (select 1 from user_roles ur where ur.user_id = users.id and ur.role_id = :roleId)",
+            nativeQuery = true)
+    int touchUsersWithRole(@Param("ids") Collection<Long> ids, @Param("roleId") Long roleId,
+                           @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "delete from user_roles where role_id = :roleId and user_id in (:ids)", nativeQuery = true)
+    int deleteRole(@Param("ids") Collection<Long> ids, @Param("roleId") Long roleId);
+}
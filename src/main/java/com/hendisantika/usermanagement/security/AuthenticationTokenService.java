@@ -0,0 +1,208 @@
+package com.hendisantika.usermanagement.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Issues and verifies the signed tokens of the stateless authentication mode: compact JWTs signed with
+ * HMAC-SHA256, carrying the user id, username and authorities, kept in an HttpOnly cookie. Any node holding
+ * the same secret can authenticate a request from the token alone, without a session or a user lookup.
+ * <p>
+ * Tokens are short-lived. {@link TokenAuthenticationFilter} renews them once past half their lifetime,
+ * re-reading the user at that point, so role changes and deletions take effect within one lifetime.
+ */
+@Slf4j
+@Component
+public class AuthenticationTokenService {
+
+    public static final String COOKIE_NAME = "USER_TOKEN";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final SecretKeySpec key;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    public AuthenticationTokenService(@Value("${user-management.security.token.enabled:false}") boolean enabled,
+                                      @Value("${user-management.security.token.ttl:15m}") Duration ttl,
+                                      @Value("${user-management.security.token.secret:}") String secret) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        byte[] keyBytes;
+        if (StringUtils.hasText(secret)) {
+            keyBytes = Base64.getDecoder().decode(secret.trim());
+            if (keyBytes.length < MIN_SECRET_BYTES) {
+                throw new IllegalArgumentException("user-management.security.token.secret must be at least "
+                        + MIN_SECRET_BYTES + " bytes, Base64 encoded");
+            }
+        } else {
+            keyBytes = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(keyBytes);
+            if (enabled) {
+                log.warn("No user-management.security.token.secret set, using a random key: tokens will not be "
+                        + "accepted by other nodes or after a restart");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        if (enabled) {
+            log.info("Stateless token authentication, tokens valid for {}", ttl);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String issue(UserPrincipal principal, Instant now) {
+        ObjectNode claims = objectMapper.createObjectNode();
+        claims.put("sub", String.valueOf(principal.getId()));
+        claims.put("name", principal.getUsername());
+        ArrayNode authorities = claims.putArray("auth");
+        principal.getAuthorities().forEach(authority -> authorities.add(authority.getAuthority()));
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", now.plus(ttl).getEpochSecond());
+        try {
+            String signed = HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return signed + "." + ENCODER.encodeToString(sign(signed));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write token claims", e);
+        }
+    }
+
+    /**
+     * @return the claims of {@code token}, or {@code null} when it is malformed, not signed with our key or expired
+     */
+    public Claims verify(String token, Instant now) {
+        int first = token.indexOf('.');
+        int second = token.indexOf('.', first + 1);
+        if (first < 0 || second < 0 || !HEADER.equals(token.substring(0, first))) {
+            return null;
+        }
+        try {
+            byte[] signature = DECODER.decode(token.substring(second + 1));
+            if (!MessageDigest.isEqual(signature, sign(token.substring(0, second)))) {
+                return null;
+            }
+            JsonNode claims = objectMapper.readTree(DECODER.decode(token.substring(first + 1, second)));
+            long expiresAt = claims.path("exp").asLong();
+            if (now.getEpochSecond() >= expiresAt) {
+                return null;
+            }
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            claims.path("auth").forEach(authority -> authorities.add(new SimpleGrantedAuthority(authority.asText())));
+            return new Claims(Long.valueOf(claims.path("sub").asText()), claims.path("name").asText(), authorities,
+                    Instant.ofEpochSecond(claims.path("iat").asLong()), Instant.ofEpochSecond(expiresAt));
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Renew once less than half of the lifetime is left, so an active user is never logged out.
+     */
+    public boolean needsRenewal(Claims claims, Instant now) {
+        return Duration.between(now, claims.getExpiresAt()).compareTo(ttl.dividedBy(2)) < 0;
+    }
+
+    public String readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    public void writeCookie(HttpServletRequest request, HttpServletResponse response, UserPrincipal principal) {
+        addCookie(request, response, issue(principal, Instant.now()), ttl);
+    }
+
+    public void clearCookie(HttpServletRequest request, HttpServletResponse response) {
+        addCookie(request, response, "", Duration.ZERO);
+    }
+
+    private static void addCookie(HttpServletRequest request, HttpServletResponse response, String value, Duration maxAge) {
+        String path = StringUtils.hasLength(request.getContextPath()) ? request.getContextPath() : "/";
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+                .path(path)
+                .maxAge(maxAge)
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private byte[] sign(String content) {
+        return macs.get().doFinal(content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Verified content of a token.
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static final class Claims {
+        private final Long userId;
+        private final String username;
+        private final List<GrantedAuthority> authorities;
+        private final Instant issuedAt;
+        private final Instant expiresAt;
+
+        /**
+         * Principal for the request, without a password: token sessions never re-verify one.
+         */
+        public UserPrincipal toPrincipal() {
+            return new UserPrincipal(userId, username, "", authorities);
+        }
+    }
+}
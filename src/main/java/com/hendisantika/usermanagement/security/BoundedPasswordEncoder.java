@@ -0,0 +1,49 @@
+package com.hendisantika.usermanagement.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * {@link PasswordEncoder} that runs the delegate on the {@link PasswordHashingExecutor}
+ * instead of the calling request thread.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute(() -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * Hashes a batch of passwords in parallel on the executor, returning the hashes in input order.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        List<Supplier<String>> tasks = new ArrayList<>(rawPasswords.size());
+        for (CharSequence rawPassword : rawPasswords) {
+            tasks.add(() -> delegate.encode(rawPassword));
+        }
+        return executor.executeAll(tasks);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Only parses the hash prefix, cheap enough to stay on the caller thread
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,92 @@
+package com.hendisantika.usermanagement.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * {@link BCryptPasswordEncoder} whose cost is chosen for the host it runs on.
+ * <p>
+ * Unlike the parent, {@link #upgradeEncoding(String)} asks for a rehash whenever the stored cost is below the
+ * calibrated one. Hashes are never downgraded: nodes (and restarts) calibrate from noisy timings and may pick
+ * different costs, which would otherwise rehash the same account back and forth, a write on every login.
+ */
+@Slf4j
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    static final int MIN_BCRYPT_COST = 4;
+    static final int MAX_BCRYPT_COST = 31;
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        return cost < 0 || cost < strength;
+    }
+
+    /**
+     * Cost of a {@code $2a$NN$...} hash, or -1 when it is not a BCrypt hash.
+     */
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Picks the highest cost in {@code [minStrength, maxStrength]} whose verify time on this host stays within
+     * {@code target}. Each cost step doubles the work, so the cost is extrapolated from a timing at
+     * {@code minStrength} and then checked once.
+     */
+    public static int calibrate(Duration target, int minStrength, int maxStrength) {
+        int min = Math.max(MIN_BCRYPT_COST, minStrength);
+        int max = Math.min(MAX_BCRYPT_COST, Math.max(min, maxStrength));
+        long targetNanos = target.toNanos();
+
+        long baseNanos = measureVerifyNanos(min);
+        int strength = min;
+        long estimate = baseNanos;
+        while (strength < max && estimate * 2 <= targetNanos) {
+            strength++;
+            estimate *= 2;
+        }
+        if (strength > min && measureVerifyNanos(strength) > targetNanos) {
+            strength--;
+        }
+        log.info("BCrypt calibrated to cost {} (cost {} verifies in {} ms, target {} ms)",
+                strength, min, baseNanos / 1_000_000, target.toMillis());
+        return strength;
+    }
+
+    private static long measureVerifyNanos(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        long best = Long.MAX_VALUE;
+        // Best of two runs, the first one also pays for class loading and JIT
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE_PASSWORD, hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
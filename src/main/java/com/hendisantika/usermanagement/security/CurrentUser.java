@@ -0,0 +1,116 @@
+package com.hendisantika.usermanagement.security;
+
+import com.hendisantika.usermanagement.entity.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * The logged-in user of the current request: id, username and role set, resolved once from the security
+ * context and kept as the {@value #ATTRIBUTE} request attribute, which templates read as {@code ${currentUser}}
+ * instead of evaluating {@code #authorization} expressions. It is resolved again when the request's
+ * authentication changes, and on every call outside of a web request.
+ */
+public final class CurrentUser {
+
+    public static final String ATTRIBUTE = "currentUser";
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final Authentication authentication;
+    private final Long id;
+    private final String username;
+    private final Set<String> roles;
+    private final boolean admin;
+
+    private User user;
+
+    private CurrentUser(Authentication authentication, Long id, String username, Set<String> roles) {
+        this.authentication = authentication;
+        this.id = id;
+        this.username = username;
+        this.roles = roles;
+        this.admin = hasRole("ADMIN");
+    }
+
+    public static CurrentUser get() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return of(authentication);
+        }
+        Object cached = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached instanceof CurrentUser && ((CurrentUser) cached).authentication == authentication) {
+            return (CurrentUser) cached;
+        }
+        CurrentUser current = of(authentication);
+        attributes.setAttribute(ATTRIBUTE, current, RequestAttributes.SCOPE_REQUEST);
+        return current;
+    }
+
+    private static CurrentUser of(Authentication authentication) {
+        Object principal = authentication == null ? null : authentication.getPrincipal();
+        if (!(principal instanceof UserDetails)) {
+            return new CurrentUser(authentication, null, null, Collections.emptySet());
+        }
+        UserDetails details = (UserDetails) principal;
+        Set<String> roles = new HashSet<>();
+        for (GrantedAuthority authority : details.getAuthorities()) {
+            roles.add(authority.getAuthority());
+        }
+        Long id = principal instanceof UserPrincipal ? ((UserPrincipal) principal).getId() : null;
+        return new CurrentUser(authentication, id, details.getUsername(), Collections.unmodifiableSet(roles));
+    }
+
+    public boolean isAuthenticated() {
+        return username != null;
+    }
+
+    /**
+     * Id of the user row, {@code null} when the principal does not carry one (such as an in-memory test user).
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    /**
+     * Same check as {@code hasRole('ROLE_ADMIN')}, which guards the admin parts of the templates and
+     * {@code UserService}.
+     */
+    public boolean isAdmin() {
+        return admin;
+    }
+
+    /**
+     * Like Spring Security's {@code hasRole}: {@code role} is matched with or without its {@code ROLE_} prefix.
+     */
+    public boolean hasRole(String role) {
+        return roles.contains(role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role);
+    }
+
+    /**
+     * The user entity, loaded with {@code loader} on the first call of the request.
+     */
+    public User getUser(Supplier<User> loader) {
+        if (user == null) {
+            user = loader.get();
+        }
+        return user;
+    }
+}
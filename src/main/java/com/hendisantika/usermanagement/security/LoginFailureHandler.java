@@ -0,0 +1,49 @@
+package com.hendisantika.usermanagement.security;
+
+import com.hendisantika.usermanagement.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+
+import java.io.IOException;
+
+/**
+ * Redirects failed form logins back to the login page, except when the password could not be
+ * verified because the hashing executor is saturated: that is answered with 503 and Retry-After.
+ * Failures are counted by exception type.
+ */
+public class LoginFailureHandler extends SimpleUrlAuthenticationFailureHandler {
+
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    private final MeterRegistry meterRegistry;
+
+    public LoginFailureHandler(String defaultFailureUrl, MeterRegistry meterRegistry) {
+        super(defaultFailureUrl);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
+                                        AuthenticationException exception) throws IOException, ServletException {
+        boolean unavailable = exception.getCause() instanceof PasswordHashingUnavailableException;
+        Counter.builder(LoginMetrics.ATTEMPTS)
+                .description("Form login attempts")
+                .tag(LoginMetrics.OUTCOME, "failure")
+                .tag(LoginMetrics.REASON, unavailable ? "unavailable" : exception.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+
+        if (unavailable) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, exception.getMessage());
+            return;
+        }
+        super.onAuthenticationFailure(request, response, exception);
+    }
+}
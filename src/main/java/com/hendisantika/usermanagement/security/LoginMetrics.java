@@ -0,0 +1,15 @@
+package com.hendisantika.usermanagement.security;
+
+/**
+ * Meter names and tags shared by the login components.
+ */
+final class LoginMetrics {
+
+    static final String ATTEMPTS = "user.login.attempts";
+    static final String LATENCY = "user.login";
+    static final String OUTCOME = "outcome";
+    static final String REASON = "reason";
+
+    private LoginMetrics() {
+    }
+}
@@ -0,0 +1,34 @@
+package com.hendisantika.usermanagement.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
+
+import java.io.IOException;
+
+/**
+ * Redirects successful form logins like {@code defaultSuccessUrl} and counts them.
+ */
+public class LoginSuccessHandler extends SavedRequestAwareAuthenticationSuccessHandler {
+
+    private final Counter successes;
+
+    public LoginSuccessHandler(String defaultTargetUrl, MeterRegistry meterRegistry) {
+        setDefaultTargetUrl(defaultTargetUrl);
+        this.successes = Counter.builder(LoginMetrics.ATTEMPTS)
+                .description("Form login attempts")
+                .tag(LoginMetrics.OUTCOME, "success")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws ServletException, IOException {
+        successes.increment();
+        super.onAuthenticationSuccess(request, response, authentication);
+    }
+}
@@ -0,0 +1,126 @@
+package com.hendisantika.usermanagement.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Login attempt budgets per client address and per username, taken before any user lookup or password
+ * verify, and given back when the login succeeds. The address budget slows a credential-stuffing client
+ * spraying many usernames, the username budget slows guessing one account from many addresses. Both are
+ * {@link TokenBuckets}, so memory is fixed by the configured slot count.
+ */
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    /**
+     * Request attribute holding the username a login attempt was charged for, until it is released.
+     */
+    static final String CHARGED_USERNAME = LoginThrottle.class.getName() + ".chargedUsername";
+
+    private final boolean enabled;
+    private final TokenBuckets addresses;
+    private final TokenBuckets usernames;
+    private final long origin = System.nanoTime();
+
+    public LoginThrottle(@Value("${user-management.login-throttling.enabled:true}") boolean enabled,
+                         @Value("${user-management.login-throttling.slots:65536}") int slots,
+                         @Value("${user-management.login-throttling.ip.capacity:50}") int addressCapacity,
+                         @Value("${user-management.login-throttling.ip.refill-period:1s}") Duration addressRefill,
+                         @Value("${user-management.login-throttling.username.capacity:5}") int usernameCapacity,
+                         @Value("${user-management.login-throttling.username.refill-period:12s}") Duration usernameRefill) {
+        this.enabled = enabled;
+        this.addresses = new TokenBuckets(slots, addressCapacity, addressRefill.toNanos());
+        this.usernames = new TokenBuckets(slots, usernameCapacity, usernameRefill.toNanos());
+        if (enabled) {
+            log.info("Login throttling: {} attempts per address, one more every {}; {} per username, one more every {}",
+                    addressCapacity, addressRefill, usernameCapacity, usernameRefill);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes an attempt from the budget of client {@code address}.
+     *
+     * @return {@code 0} when the attempt may proceed, otherwise the nanoseconds until it may be retried
+     */
+    public long acquireAddress(String address) {
+        return addresses.acquire(addressKey(address), now());
+    }
+
+    /**
+     * Takes an attempt from the budget of {@code username}, ignoring case and surrounding blanks so that
+     * variants of one name share a budget.
+     *
+     * @return {@code 0} when the attempt may proceed, otherwise the nanoseconds until it may be retried
+     */
+    public long acquireUsername(String username) {
+        return usernames.acquire(usernameKey(username), now());
+    }
+
+    /**
+     * Gives the attempt taken for {@code username} from {@code address} back, once it turned out to be a
+     * successful login: neither the owner of an account nor a client sending HTTP Basic credentials with
+     * every request uses up a budget.
+     */
+    public void release(String username, String address) {
+        long now = now();
+        usernames.release(usernameKey(username), now);
+        addresses.release(addressKey(address), now);
+    }
+
+    /**
+     * Releases the attempt of a request the {@link LoginThrottlingFilter} charged, when it authenticated.
+     * Successes of requests that were not charged give nothing back.
+     */
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        Object username = request.getAttribute(CHARGED_USERNAME);
+        if (username != null) {
+            request.removeAttribute(CHARGED_USERNAME);
+            release((String) username, request.getRemoteAddr());
+        }
+    }
+
+    public int getActiveAddressBuckets() {
+        return addresses.activeSlots(now());
+    }
+
+    public int getActiveUsernameBuckets() {
+        return usernames.activeSlots(now());
+    }
+
+    public long getSizeInBytes() {
+        return addresses.sizeInBytes() + usernames.sizeInBytes();
+    }
+
+    private static String addressKey(String address) {
+        return address == null ? "" : address;
+    }
+
+    private static String usernameKey(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+}
@@ -0,0 +1,106 @@
+package com.hendisantika.usermanagement.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.www.BasicAuthenticationConverter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs ahead of the form login or HTTP Basic processing and answers attempts over the {@link LoginThrottle}
+ * budgets with 429 and Retry-After, so they cost neither a user lookup nor a password verify. Every attempt
+ * takes from the budgets up front, so a burst of concurrent guesses is bounded too; {@link LoginThrottle} gives
+ * successful logins their attempt back. The address budget is checked first: a throttled client does not use
+ * up the budgets of the usernames it tries.
+ */
+public class LoginThrottlingFilter extends OncePerRequestFilter {
+
+    private static final String BASIC = "Basic ";
+
+    private final LoginThrottle throttle;
+    private final RequestMatcher loginRequest;
+    private final Function<HttpServletRequest, String> username;
+    private final MeterRegistry meterRegistry;
+
+    public LoginThrottlingFilter(LoginThrottle throttle, String loginProcessingUrl, String usernameParameter,
+                                 MeterRegistry meterRegistry) {
+        this(throttle, new AntPathRequestMatcher(loginProcessingUrl, "POST"),
+                request -> request.getParameter(usernameParameter), meterRegistry);
+    }
+
+    private LoginThrottlingFilter(LoginThrottle throttle, RequestMatcher loginRequest,
+                                  Function<HttpServletRequest, String> username, MeterRegistry meterRegistry) {
+        this.throttle = throttle;
+        this.loginRequest = loginRequest;
+        this.username = username;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Throttles requests carrying HTTP Basic credentials, to run ahead of the {@code BasicAuthenticationFilter}.
+     */
+    public static LoginThrottlingFilter forHttpBasic(LoginThrottle throttle, MeterRegistry meterRegistry) {
+        BasicAuthenticationConverter converter = new BasicAuthenticationConverter();
+        return new LoginThrottlingFilter(throttle,
+                request -> {
+                    String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+                    return header != null && header.regionMatches(true, 0, BASIC, 0, BASIC.length());
+                },
+                request -> {
+                    try {
+                        UsernamePasswordAuthenticationToken credentials = converter.convert(request);
+                        return credentials == null ? null : credentials.getName();
+                    } catch (AuthenticationException e) {
+                        // Malformed header, rejected by the BasicAuthenticationFilter without a lookup
+                        return null;
+                    }
+                },
+                meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginRequest.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String reason = "ip";
+        String attempted = username.apply(request);
+        long retryAfterNanos = throttle.acquireAddress(request.getRemoteAddr());
+        if (retryAfterNanos == 0) {
+            reason = "username";
+            retryAfterNanos = throttle.acquireUsername(attempted);
+        }
+        if (retryAfterNanos == 0) {
+            // Given back by LoginThrottle#onAuthenticationSuccess if the login succeeds
+            request.setAttribute(LoginThrottle.CHARGED_USERNAME, attempted == null ? "" : attempted);
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Counter.builder(LoginMetrics.ATTEMPTS)
+                .description("Form login attempts")
+                .tag(LoginMetrics.OUTCOME, "throttled")
+                .tag(LoginMetrics.REASON, reason)
+                .register(meterRegistry)
+                .increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many login attempts, retry later");
+    }
+}
@@ -0,0 +1,179 @@
+package com.hendisantika.usermanagement.security;
+
+import com.hendisantika.usermanagement.exception.PasswordHashingUnavailableException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Fixed-size pool with a bounded queue that runs every password hash and verify, so that a burst of
+ * signups or logins uses at most {@code threads} cores instead of every request thread.
+ * A full queue fails fast with {@link PasswordHashingUnavailableException}.
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalHashNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    public PasswordHashingExecutor(@Value("${user-management.password-hashing.threads:0}") int threads,
+                                   @Value("${user-management.password-hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${user-management.password-hashing.timeout:5s}") Duration timeout) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeout = timeout;
+        log.info("Password hashing executor: {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Runs {@code task} on the hashing pool and waits for its result.
+     *
+     * @throws PasswordHashingUnavailableException if the queue is full or the task did not finish within the timeout
+     */
+    public <T> T execute(Supplier<T> task) {
+        return await(submit(task));
+    }
+
+    /**
+     * Runs {@code tasks} on the hashing pool, at most one per pool thread at a time, and returns their
+     * results in order. Keeping the window at the pool size leaves the queue free for interactive
+     * logins and signups while a bulk job is hashing.
+     *
+     * @throws PasswordHashingUnavailableException if a task was rejected or did not finish within the timeout
+     */
+    public <T> List<T> executeAll(List<? extends Supplier<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        Deque<Future<T>> inFlight = new ArrayDeque<>();
+        int window = getPoolSize();
+        try {
+            for (Supplier<T> task : tasks) {
+                if (inFlight.size() >= window) {
+                    results.add(await(inFlight.removeFirst()));
+                }
+                inFlight.addLast(submit(task));
+            }
+            while (!inFlight.isEmpty()) {
+                results.add(await(inFlight.removeFirst()));
+            }
+            return results;
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private <T> Future<T> submit(Supplier<T> task) {
+        try {
+            return executor.submit(() -> timed(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingUnavailableException("Too many password operations in progress, try again later.", e);
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHashingUnavailableException("Password operation timed out.", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException("Password operation interrupted.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private <T> T timed(Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            completed.increment();
+            totalHashNanos.add(elapsed);
+            maxHashNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    public int getPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return executor.getQueue().size() + executor.getQueue().remainingCapacity();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public double getAverageHashMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalHashNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxHashMillis() {
+        return maxHashNanos.get() / 1_000_000.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hash-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
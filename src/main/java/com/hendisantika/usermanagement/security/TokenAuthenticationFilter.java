@@ -0,0 +1,86 @@
+package com.hendisantika.usermanagement.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Authenticates requests of the stateless mode from the {@link AuthenticationTokenService} cookie: a valid
+ * signature is enough, no session and no user lookup. Once a token is past half its lifetime it is renewed
+ * from a fresh {@link UserDetailsService} read, which is also where a deleted or disabled user is logged out.
+ * An invalid or expired cookie is cleared and the request continues unauthenticated.
+ */
+@Slf4j
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private final AuthenticationTokenService tokens;
+    private final UserDetailsService userDetailsService;
+    private final SecurityContextHolderStrategy securityContextHolderStrategy =
+            SecurityContextHolder.getContextHolderStrategy();
+
+    public TokenAuthenticationFilter(AuthenticationTokenService tokens, UserDetailsService userDetailsService) {
+        this.tokens = tokens;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = tokens.readCookie(request);
+        if (token != null && !token.isEmpty()) {
+            UserPrincipal principal = authenticate(token, request, response);
+            if (principal != null) {
+                SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+                context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                        principal, null, principal.getAuthorities()));
+                securityContextHolderStrategy.setContext(context);
+            } else {
+                tokens.clearCookie(request, response);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private UserPrincipal authenticate(String token, HttpServletRequest request, HttpServletResponse response) {
+        Instant now = Instant.now();
+        AuthenticationTokenService.Claims claims = tokens.verify(token, now);
+        if (claims == null) {
+            return null;
+        }
+        if (!tokens.needsRenewal(claims, now)) {
+            return claims.toPrincipal();
+        }
+        UserPrincipal renewed = reload(claims);
+        if (renewed != null) {
+            tokens.writeCookie(request, response, renewed);
+        }
+        return renewed;
+    }
+
+    private UserPrincipal reload(AuthenticationTokenService.Claims claims) {
+        try {
+            UserDetails user = userDetailsService.loadUserByUsername(claims.getUsername());
+            if (!(user instanceof UserPrincipal) || !user.isEnabled() || !user.isAccountNonLocked()
+                    || !claims.getUserId().equals(((UserPrincipal) user).getId())) {
+                return null;
+            }
+            return new UserPrincipal(claims.getUserId(), user.getUsername(), "", user.getAuthorities());
+        } catch (UsernameNotFoundException e) {
+            log.debug("Token of user {} not renewed, the user no longer exists", claims.getUsername());
+            return null;
+        }
+    }
+}
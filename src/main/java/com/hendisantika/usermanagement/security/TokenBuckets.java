@@ -0,0 +1,117 @@
+package com.hendisantika.usermanagement.security;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed table of lock-free token buckets addressed by key hash, so memory stays at {@code 8 * slots} bytes
+ * however many distinct keys are seen. Each slot holds a single {@code long}: the time at which its bucket
+ * will be full again (the generic cell rate algorithm), updated by compare-and-set. A slot whose time has
+ * passed is a full bucket, so idle keys need no eviction: they expire by refilling.
+ * <p>
+ * A key maps to two slots and is judged by the less used one, as in a count-min sketch, and a grant raises
+ * both to at least that level. Colliding keys can only share consumption, so a key may be throttled early by
+ * a busy neighbour in both its slots but never later than its own rate allows.
+ */
+final class TokenBuckets {
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long interval;
+    private final long tolerance;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+
+    /**
+     * @param slots        table size, rounded up to a power of two
+     * @param capacity     attempts a full bucket allows in a burst
+     * @param refillNanos  time to regain one attempt
+     */
+    TokenBuckets(int slots, int capacity, long refillNanos) {
+        if (slots <= 0 || capacity <= 0 || refillNanos <= 0) {
+            throw new IllegalArgumentException("Invalid token bucket sizing: " + slots + ", " + capacity + ", " + refillNanos);
+        }
+        int size = Integer.highestOneBit(Math.max(2, slots - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.interval = refillNanos;
+        this.tolerance = (capacity - 1) * refillNanos;
+    }
+
+    /**
+     * Takes one token for {@code key} at time {@code now}, a monotonic nanosecond clock that starts at or
+     * after zero.
+     *
+     * @return {@code 0} when the token was granted, otherwise the nanoseconds until one is available
+     */
+    long acquire(String key, long now) {
+        long hash = mix(key.hashCode() ^ seed);
+        int first = (int) hash & mask;
+        int second = (int) (hash >>> 32) & mask;
+        while (true) {
+            long firstFull = slots.get(first);
+            long secondFull = slots.get(second);
+            int lead = firstFull <= secondFull ? first : second;
+            long full = Math.min(firstFull, secondFull);
+            long start = Math.max(full, now);
+            if (start - now > tolerance) {
+                return start - now - tolerance;
+            }
+            long next = start + interval;
+            if (slots.compareAndSet(lead, full, next)) {
+                raise(lead == first ? second : first, next);
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #acquire}. Keys colliding in both slots share the refund, as they
+     * share consumption.
+     */
+    void release(String key, long now) {
+        long hash = mix(key.hashCode() ^ seed);
+        lower((int) hash & mask, now);
+        lower((int) (hash >>> 32) & mask, now);
+    }
+
+    private void lower(int index, long now) {
+        long current = slots.get(index);
+        // A slot at or before now is a full bucket already
+        while (current > now && !slots.compareAndSet(index, current, Math.max(now, current - interval))) {
+            current = slots.get(index);
+        }
+    }
+
+    private void raise(int index, long value) {
+        long current = slots.get(index);
+        while (current < value && !slots.compareAndSet(index, current, value)) {
+            current = slots.get(index);
+        }
+    }
+
+    /**
+     * Slots that are not full at {@code now}, i.e. keys throttled or recently seen.
+     */
+    int activeSlots(long now) {
+        int active = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) > now) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    long sizeInBytes() {
+        return slots.length() * 8L;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,43 @@
+package com.hendisantika.usermanagement.security;
+
+import com.hendisantika.usermanagement.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * {@link DaoAuthenticationProvider} that reports a saturated password hashing executor as an
+ * authentication service error, so the form login failure handler can answer it with a 503.
+ * Each authentication is timed with a percentile histogram, tagged by outcome.
+ */
+public class UserAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final MeterRegistry meterRegistry;
+
+    public UserAuthenticationProvider(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            Authentication result = super.authenticate(authentication);
+            outcome = "success";
+            return result;
+        } catch (PasswordHashingUnavailableException e) {
+            outcome = "unavailable";
+            throw new InternalAuthenticationServiceException(e.getMessage(), e);
+        } finally {
+            sample.stop(Timer.builder(LoginMetrics.LATENCY)
+                    .description("Form login authentication latency")
+                    .tag(LoginMetrics.OUTCOME, outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.hendisantika.usermanagement.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Spring Security user that also carries the id of the user row, so the principal of a request can be
+ * written to or restored from an authentication token without a lookup by username.
+ */
+public class UserPrincipal extends User {
+
+    private final Long id;
+
+    public UserPrincipal(Long id, String username, String password, Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,101 @@
+package com.hendisantika.usermanagement.service;
+
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable in-memory view of the {@code role} table, seeded and loaded once at startup.
+ * Readers never hit the database. The application has no role-editing path, so roles are fixed after
+ * startup: a role added to the table directly is only seen after a restart, or a {@link #refresh()}.
+ */
+@Slf4j
+@Component
+public class RoleRegistry {
+
+    public static final String USER = "USER";
+
+    private final RoleRepository roleRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList());
+
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        seedDefaultRoles();
+        refresh();
+    }
+
+    /**
+     * Inserts the default roles when the table is empty. Runs during context startup,
+     * before any request can race on it.
+     */
+    synchronized void seedDefaultRoles() {
+        if (roleRepository.count() > 0) {
+            return;
+        }
+        log.info("Seeding default roles");
+        roleRepository.save(newRole("SUPER ADMIN", "ROLE SUPER ADMIN"));
+        roleRepository.save(newRole("ADMIN", "ROLE ADMIN"));
+        roleRepository.save(newRole(USER, "ROLE USER"));
+    }
+
+    /**
+     * Reloads the snapshot from the table; nothing calls it after startup.
+     */
+    public synchronized void refresh() {
+        List<Role> roles = new ArrayList<>();
+        roleRepository.findAll().forEach(roles::add);
+        snapshot = new Snapshot(roles);
+        log.info("Role registry loaded {} roles", roles.size());
+    }
+
+    public List<Role> getAll() {
+        return snapshot.roles;
+    }
+
+    public Optional<Role> findById(Long id) {
+        return Optional.ofNullable(snapshot.byId.get(id));
+    }
+
+    public Optional<Role> findByName(String name) {
+        return Optional.ofNullable(snapshot.byName.get(name));
+    }
+
+    private static Role newRole(String name, String description) {
+        Role role = new Role();
+        role.setName(name);
+        role.setDescription(description);
+        return role;
+    }
+
+    private static final class Snapshot {
+        private final List<Role> roles;
+        private final Map<Long, Role> byId;
+        private final Map<String, Role> byName;
+
+        private Snapshot(List<Role> roles) {
+            Map<Long, Role> ids = new LinkedHashMap<>();
+            Map<String, Role> names = new LinkedHashMap<>();
+            for (Role role : roles) {
+                ids.put(role.getId(), role);
+                names.put(role.getName(), role);
+            }
+            this.roles = List.copyOf(roles);
+            this.byId = Collections.unmodifiableMap(ids);
+            this.byName = Collections.unmodifiableMap(names);
+        }
+    }
+}
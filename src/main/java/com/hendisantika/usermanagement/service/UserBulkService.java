@@ -0,0 +1,270 @@
+package com.hendisantika.usermanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hendisantika.usermanagement.dto.BulkJobStatus;
+import com.hendisantika.usermanagement.dto.BulkUserRequest;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.event.UsersBulkChangedEvent;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes users, or assigns or revokes a role, across a set of ids or a filter. Jobs run one at a time in
+ * the background and walk the selection in id order, one chunk per transaction, with set-based statements
+ * against {@code users} and {@code user_roles}: no user entity is loaded. Progress is kept for
+ * {@code retention} after the job ends, see {@link #getStatus(String)}.
+ * <p>
+ * Each committed chunk publishes one {@link UsersBulkChangedEvent}, so a failed job leaves the chunks
+ * before it applied and reports how far it got. It also evicts the cached roles of its users from the
+ * second-level cache, which the {@code user_roles} statements bypass.
+ */
+@Slf4j
+@Service
+public class UserBulkService {
+
+    private final UserRepository repository;
+    private final RoleRegistry roleRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate chunkTransaction;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-bulk");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Cache<String, Job> jobs;
+
+    @Value("${user-management.bulk.chunk-size:500}")
+    private int chunkSize = 500;
+
+    public UserBulkService(UserRepository repository, RoleRegistry roleRegistry,
+                           ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                           @Value("${user-management.bulk.retention:1h}") Duration retention) {
+        this.repository = repository;
+        this.roleRegistry = roleRegistry;
+        this.eventPublisher = eventPublisher;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    /**
+     * Queues the job and returns its initial status.
+     *
+     * @throws IllegalArgumentException if the selection is empty or ambiguous, or a role is unknown
+     */
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN')")
+    public BulkJobStatus start(BulkUserRequest request) {
+        Role role = null;
+        if (request.getAction() != BulkUserRequest.Action.DELETE) {
+            role = resolveRole(request.getRole());
+        }
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean byFilter = StringUtils.hasText(request.getUsernamePrefix()) || StringUtils.hasText(request.getWithRole());
+        if (byIds == byFilter) {
+            throw new IllegalArgumentException("Select users either by ids or by usernamePrefix/withRole");
+        }
+
+        Job job;
+        if (byIds) {
+            List<Long> ids = new ArrayList<>(new TreeSet<>(request.getIds()));
+            job = new Job(request.getAction(), role, ids.size(), ids, null, null);
+        } else {
+            String pattern = StringUtils.hasText(request.getUsernamePrefix())
+                    ? likePrefix(request.getUsernamePrefix().trim()) : null;
+            Long withRoleId = StringUtils.hasText(request.getWithRole()) ? resolveRole(request.getWithRole()).getId() : null;
+            job = new Job(request.getAction(), role, repository.countByFilter(pattern, withRoleId), null, pattern,
+                    withRoleId);
+        }
+        jobs.put(job.id, job);
+        executor.execute(() -> run(job));
+        log.info("Bulk job {} queued: {} of {} users", job.id, job.action, job.total);
+        return job.toStatus();
+    }
+
+    public Optional<BulkJobStatus> getStatus(String id) {
+        Job job = jobs.getIfPresent(id);
+        return job == null ? Optional.empty() : Optional.of(job.toStatus());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job) {
+        job.started();
+        try {
+            int index = 0;
+            long after = 0;
+            while (true) {
+                List<Long> ids;
+                if (job.ids != null) {
+                    ids = job.ids.subList(index, Math.min(index + chunkSize, job.ids.size()));
+                    index += ids.size();
+                } else {
+                    ids = repository.findIdsByFilter(after, job.usernamePattern, job.withRoleId, Limit.of(chunkSize));
+                }
+                if (ids.isEmpty()) {
+                    break;
+                }
+                after = ids.get(ids.size() - 1);
+                Chunk chunk = chunkTransaction.execute(status -> apply(job, ids));
+                if (!chunk.usernames.isEmpty()) {
+                    // Every action changes user_roles, whose statements leave the cached roles in place
+                    repository.evictRoles(chunk.usernames.keySet());
+                    eventPublisher.publishEvent(new UsersBulkChangedEvent(job.eventType(), chunk.usernames));
+                }
+                job.progress(ids.size(), chunk.affected);
+            }
+            job.finish(BulkJobStatus.State.COMPLETED, null);
+            log.info("Bulk job {} completed: {} of {} users affected in {} ms", job.id, job.affected, job.processed,
+                    job.elapsedMillis());
+        } catch (RuntimeException e) {
+            job.finish(BulkJobStatus.State.FAILED, e.getMessage());
+            log.error("Bulk job {} failed after {} users", job.id, job.processed, e);
+        }
+    }
+
+    private Chunk apply(Job job, List<Long> ids) {
+        Map<Long, String> usernames = new HashMap<>();
+        for (Object[] row : repository.findUsernamesByIdIn(ids)) {
+            usernames.put((Long) row[0], (String) row[1]);
+        }
+        if (usernames.isEmpty()) {
+            return new Chunk(usernames, 0);
+        }
+        List<Long> existing = new ArrayList<>(usernames.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        int affected;
+        switch (job.action) {
+            case DELETE:
+                repository.deleteRolesOfUsers(existing);
+                affected = repository.deleteByIds(existing);
+                break;
+            case ASSIGN_ROLE:
+                // Version first: the not-exists condition has to see the role rows before the insert
+                repository.touchUsersWithoutRole(existing, job.role.getId(), now);
+                affected = repository.insertRole(existing, job.role.getId());
+                break;
+            case REVOKE_ROLE:
+                repository.touchUsersWithRole(existing, job.role.getId(), now);
+                affected = repository.deleteRole(existing, job.role.getId());
+                break;
+            default:
+                throw new IllegalStateException("Unknown action " + job.action);
+        }
+        return new Chunk(usernames, affected);
+    }
+
+    private Role resolveRole(String name) {
+        if (!StringUtils.hasText(name)) {
+            throw new IllegalArgumentException("A role is required");
+        }
+        return roleRegistry.findByName(name.trim())
+                .orElseThrow(() -> new IllegalArgumentException("Unknown role: " + name));
+    }
+
+    private static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    private static final class Chunk {
+        private final Map<Long, String> usernames;
+        private final int affected;
+
+        private Chunk(Map<Long, String> usernames, int affected) {
+            this.usernames = usernames;
+            this.affected = affected;
+        }
+    }
+
+    /**
+     * A job and its progress, written by the bulk thread and read by status requests.
+     */
+    private static final class Job {
+        private final String id = UUID.randomUUID().toString();
+        private final BulkUserRequest.Action action;
+        private final Role role;
+        private final long total;
+        private final List<Long> ids;
+        private final String usernamePattern;
+        private final Long withRoleId;
+        private final LocalDateTime queuedOn = LocalDateTime.now();
+
+        private volatile BulkJobStatus.State state = BulkJobStatus.State.QUEUED;
+        private volatile long processed;
+        private volatile long affected;
+        private volatile LocalDateTime startedOn;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile String error;
+
+        private Job(BulkUserRequest.Action action, Role role, long total, List<Long> ids, String usernamePattern,
+                    Long withRoleId) {
+            this.action = action;
+            this.role = role;
+            this.total = total;
+            this.ids = ids;
+            this.usernamePattern = usernamePattern;
+            this.withRoleId = withRoleId;
+        }
+
+        private UsersBulkChangedEvent.Type eventType() {
+            return action == BulkUserRequest.Action.DELETE
+                    ? UsersBulkChangedEvent.Type.DELETED : UsersBulkChangedEvent.Type.ROLES_CHANGED;
+        }
+
+        private void started() {
+            startedOn = LocalDateTime.now();
+            startNanos = System.nanoTime();
+            state = BulkJobStatus.State.RUNNING;
+        }
+
+        private void progress(int chunkProcessed, int chunkAffected) {
+            processed += chunkProcessed;
+            affected += chunkAffected;
+        }
+
+        private void finish(BulkJobStatus.State finalState, String message) {
+            endNanos = System.nanoTime();
+            error = message;
+            state = finalState;
+        }
+
+        private long elapsedMillis() {
+            if (startNanos == 0) {
+                return 0;
+            }
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            return (end - startNanos) / 1_000_000;
+        }
+
+        private BulkJobStatus toStatus() {
+            return new BulkJobStatus(id, action, state, total, processed, affected,
+                    startedOn != null ? startedOn : queuedOn, elapsedMillis(), error);
+        }
+    }
+}
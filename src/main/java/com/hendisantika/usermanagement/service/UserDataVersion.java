@@ -0,0 +1,62 @@
+package com.hendisantika.usermanagement.service;
+
+import com.hendisantika.usermanagement.event.UserChangedEvent;
+import com.hendisantika.usermanagement.event.UsersBulkChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global version of the user data, bumped after every write published by {@link UserService} (and the
+ * bulk import and bulk jobs). Anything derived from the user table can be cached under the version it was built from.
+ * <p>
+ * Writes commit before their event is published, so a reader that takes the version before querying
+ * never stores newer data under an older version. With read replicas it may still store older data under
+ * the newer version, read from a replica that has not caught up: see {@link #mayLagOnReplicas()}.
+ */
+@Component
+public class UserDataVersion {
+
+    private final AtomicLong version = new AtomicLong();
+    private final boolean replicated;
+    private final long maxLagNanos;
+    private volatile long changedAt;
+
+    public UserDataVersion(@Value("${user-management.datasource.replica.enabled:false}") boolean replicated,
+                           @Value("${user-management.datasource.replica.max-lag:2s}") Duration maxLag) {
+        this.replicated = replicated;
+        this.maxLagNanos = maxLag.toNanos();
+        this.changedAt = System.nanoTime() - maxLagNanos;
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Whether the replicas may not have caught up with the current version yet: for {@code max-lag} after a
+     * change, when reads go to replicas. Nothing read in that time should be cached.
+     */
+    public boolean mayLagOnReplicas() {
+        return replicated && System.nanoTime() - changedAt < maxLagNanos;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        changed();
+    }
+
+    @EventListener
+    public void onUsersBulkChanged(UsersBulkChangedEvent event) {
+        changed();
+    }
+
+    private void changed() {
+        // Before the new version is visible, so a reader seeing it also sees the change time
+        changedAt = System.nanoTime();
+        version.incrementAndGet();
+    }
+}
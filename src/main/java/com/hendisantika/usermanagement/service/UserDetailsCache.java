@@ -0,0 +1,98 @@
+package com.hendisantika.usermanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
+import com.hendisantika.usermanagement.event.UsersBulkChangedEvent;
+import com.hendisantika.usermanagement.security.UserPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded cache of the {@link UserDetails} built by {@link UserDetailsServiceImpl}, plugged into the
+ * {@code DaoAuthenticationProvider} so repeated logins skip the user and role queries.
+ * <p>
+ * Entries are copied in and out: Spring Security erases the credentials of the authenticated principal,
+ * which would otherwise wipe the cached password hash.
+ */
+@Slf4j
+@Component
+public class UserDetailsCache implements UserCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    public UserDetailsCache(@Value("${user-management.security.user-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${user-management.security.user-cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        UserDetails cached = cache.getIfPresent(username);
+        return cached == null ? null : copyOf(cached);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), copyOf(user));
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.CREATED) {
+            return;
+        }
+        log.debug("Evicting cached login details for {}", event.getPreviousUsername());
+        removeUserFromCache(event.getPreviousUsername());
+        if (event.getUser() != null) {
+            removeUserFromCache(event.getUser().getUsername());
+        }
+    }
+
+    @EventListener
+    public void onUsersBulkChanged(UsersBulkChangedEvent event) {
+        cache.invalidateAll(event.getUsernames().values());
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static UserDetails copyOf(UserDetails user) {
+        if (user instanceof UserPrincipal) {
+            return new UserPrincipal(((UserPrincipal) user).getId(), user.getUsername(), user.getPassword(),
+                    user.getAuthorities());
+        }
+        return User.withUserDetails(user).build();
+    }
+}
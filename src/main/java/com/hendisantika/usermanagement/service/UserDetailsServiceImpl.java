@@ -1,33 +1,46 @@
 package com.hendisantika.usermanagement.service;
 
 import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
 import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.security.UserPrincipal;
 import com.hendisantika.usermanagement.entity.User; // <-- ton entité JPA
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Set;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @Transactional
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
+    @Timed("user.details.load")
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // On récupère l'utilisateur depuis la base de données
-        User appUser = userRepository.findByUsername(username)
+        // On récupère l'utilisateur par son natural id : cache de second niveau, sinon base de données
+        User appUser = userRepository.loadByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Login Username Invalid."));
 
         // On transforme les rôles en GrantedAuthority pour Spring Security
@@ -37,12 +50,37 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .collect(Collectors.toSet());
 
         // On retourne un UserDetails compatible Spring Security
-        return org.springframework.security.core.userdetails.User
-                .builder()
-                .username(appUser.getUsername())
-                .password(appUser.getPassword())
-                .authorities(authorities)
-                .build();
+        return new UserPrincipal(appUser.getId(), appUser.getUsername(), appUser.getPassword(), authorities);
     }
-}
 
+    /**
+     * Called by the {@code DaoAuthenticationProvider} after a successful login when the stored hash uses an
+     * outdated encoding or BCrypt cost; {@code newPassword} is the password re-encoded with the current settings.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User appUser = userRepository.loadByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("Login Username Invalid."));
+        appUser.setPassword(newPassword);
+        log.info("Upgraded password hash of user {}", appUser.getUsername());
+        publishAfterCommit(new UserChangedEvent(UserChangedEvent.Type.PASSWORD_CHANGED, appUser));
+
+        return new UserPrincipal(appUser.getId(), user.getUsername(), newPassword, user.getAuthorities());
+    }
+
+    /**
+     * The new hash is only flushed on commit: a cache evicted before that could reload and keep the old hash.
+     */
+    private void publishAfterCommit(UserChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eventPublisher.publishEvent(event);
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package com.hendisantika.usermanagement.service;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Strong ETag over the {@code (id, lastModifiedOn)} pairs of one or more users, in order.
+ */
+final class UserEtag {
+
+    private static final int LENGTH = 16;
+
+    private final MessageDigest digest;
+    private final ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES + Integer.BYTES);
+
+    UserEtag() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    UserEtag add(Long id, LocalDateTime lastModifiedOn) {
+        buffer.clear();
+        buffer.putLong(id);
+        // Rows written before auditing have no timestamp
+        buffer.putLong(lastModifiedOn == null ? Long.MIN_VALUE : lastModifiedOn.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(lastModifiedOn == null ? 0 : lastModifiedOn.getNano());
+        digest.update(buffer.array());
+        return this;
+    }
+
+    UserEtag add(boolean flag) {
+        digest.update((byte) (flag ? 1 : 0));
+        return this;
+    }
+
+    String build() {
+        byte[] hash = digest.digest();
+        StringBuilder etag = new StringBuilder(2 * LENGTH + 2).append('"');
+        for (int i = 0; i < LENGTH; i++) {
+            etag.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+        return etag.append('"').toString();
+    }
+}
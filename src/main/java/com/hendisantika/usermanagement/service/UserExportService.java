@@ -0,0 +1,117 @@
+package com.hendisantika.usermanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hendisantika.usermanagement.dto.UserFileFormat;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Export of the user directory. Users are read from a cursor-backed stream in id order and written
+ * as they arrive; every {@value #CHUNK_SIZE} users their roles are looked up in one statement and the
+ * persistence context is cleared, so memory stays flat whatever the number of users.
+ */
+@Service
+public class UserExportService {
+
+    static final int CHUNK_SIZE = 1000;
+
+    private final UserRepository repository;
+    private final RoleRegistry roleRegistry;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    public UserExportService(UserRepository repository, RoleRegistry roleRegistry, ObjectMapper objectMapper,
+                             EntityManager entityManager) {
+        this.repository = repository;
+        this.roleRegistry = roleRegistry;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Checks the requested columns up front, since an unknown column can no longer be reported
+     * once the response has started streaming.
+     *
+     * @param requested column names, {@code null} or empty for all of them
+     * @throws IllegalArgumentException on an unknown column
+     */
+    public static List<String> resolveColumns(List<String> requested) {
+        if (requested == null || requested.isEmpty()) {
+            return UserRecordWriter.COLUMNS;
+        }
+        List<String> columns = new ArrayList<>();
+        for (String column : requested) {
+            String name = column.trim();
+            if (!UserRecordWriter.COLUMNS.contains(name)) {
+                throw new IllegalArgumentException("Unknown column: " + name + ", expected any of " + UserRecordWriter.COLUMNS);
+            }
+            if (!columns.contains(name)) {
+                columns.add(name);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Writes every user to {@code output} in the given format. The transaction, and with it the
+     * database connection, lasts exactly as long as the stream.
+     *
+     * @return the number of users written
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = "user.export", longTask = true)
+    public long export(OutputStream output, UserFileFormat format, List<String> columns) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        UserRecordWriter records = UserRecordWriter.open(writer, format, columns, objectMapper);
+        boolean withRoles = columns.contains("roles");
+        long count = 0;
+        try (Stream<User> users = repository.streamAllByOrderByIdAsc()) {
+            Iterator<User> iterator = users.iterator();
+            List<User> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    Map<Long, List<String>> roles = withRoles ? roleNames(chunk) : Map.of();
+                    for (User user : chunk) {
+                        records.write(user, roles.getOrDefault(user.getId(), List.of()));
+                    }
+                    count += chunk.size();
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+        records.flush();
+        return count;
+    }
+
+    private Map<Long, List<String>> roleNames(List<User> users) {
+        List<Long> ids = users.stream().map(User::getId).collect(Collectors.toList());
+        Map<Long, List<String>> names = new HashMap<>();
+        for (Object[] pair : repository.findRoleIdsByUserIdIn(ids)) {
+            roleRegistry.findById((Long) pair[1]).map(Role::getName)
+                    .ifPresent(name -> names.computeIfAbsent((Long) pair[0], id -> new ArrayList<>()).add(name));
+        }
+        names.values().forEach(list -> list.sort(null));
+        return names;
+    }
+}
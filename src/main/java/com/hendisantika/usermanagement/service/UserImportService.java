@@ -0,0 +1,277 @@
+package com.hendisantika.usermanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hendisantika.usermanagement.dto.ImportResult;
+import com.hendisantika.usermanagement.dto.UserFileFormat;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
+import com.hendisantika.usermanagement.exception.PasswordHashingUnavailableException;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.security.BoundedPasswordEncoder;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk user import. Rows are read from the stream one at a time and handled in chunks of
+ * {@code batch-size}: validated against the {@link User} constraints, checked for taken usernames
+ * with one query, hashed in parallel on the password hashing pool and inserted through a
+ * {@link StatelessSession} with JDBC batching, so the persistence context never grows with the input.
+ * Each chunk commits on its own; a failed chunk is reported row by row and the import carries on.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    private static final String INSERT_USER_ROLE = "insert into user_roles (user_id, role_id) values (?, ?)";
+
+    private final UserRepository repository;
+    private final RoleRegistry roleRegistry;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final SessionFactory sessionFactory;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${user-management.import.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${user-management.import.max-reported-errors:1000}")
+    private int maxReportedErrors = 1000;
+
+    public UserImportService(UserRepository repository, RoleRegistry roleRegistry,
+                             BoundedPasswordEncoder passwordEncoder, Validator validator,
+                             EntityManagerFactory entityManagerFactory, ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher) {
+        this.repository = repository;
+        this.roleRegistry = roleRegistry;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a CSV stream has no header line
+     */
+    @Timed(value = "user.import", longTask = true)
+    public ImportResult importUsers(InputStream input, UserFileFormat format) throws IOException {
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+        List<ImportRow> chunk = new ArrayList<>(batchSize);
+        try (UserRecordReader reader = UserRecordReader.open(input, format, objectMapper)) {
+            UserRecordReader.UserRecord record;
+            while ((record = reader.next()) != null) {
+                result.setProcessed(result.getProcessed() + 1);
+                User user = toUser(record, result);
+                if (user == null) {
+                    continue;
+                }
+                chunk.add(new ImportRow(record.line, user));
+                if (chunk.size() >= batchSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private User toUser(UserRecordReader.UserRecord record, ImportResult result) {
+        if (record.error != null) {
+            reject(result, record.line, null, record.error);
+            return null;
+        }
+        Map<String, String> values = record.values;
+        User user = new User();
+        user.setFirstName(values.get("firstName"));
+        user.setLastName(values.get("lastName"));
+        user.setEmail(values.get("email"));
+        user.setUsername(values.get("username"));
+        user.setPassword(values.get("password"));
+
+        Set<Role> roles = new HashSet<>();
+        for (String name : splitRoles(values.get("roles"))) {
+            Optional<Role> role = roleRegistry.findByName(name);
+            if (role.isEmpty()) {
+                reject(result, record.line, user.getUsername(), "Unknown role: " + name);
+                return null;
+            }
+            roles.add(role.get());
+        }
+        if (roles.isEmpty()) {
+            roleRegistry.findByName(RoleRegistry.USER).ifPresent(roles::add);
+        }
+        user.setRoles(roles);
+
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            reject(result, record.line, user.getUsername(), message);
+            return null;
+        }
+        return user;
+    }
+
+    private static List<String> splitRoles(String roles) {
+        List<String> names = new ArrayList<>();
+        if (roles == null) {
+            return names;
+        }
+        for (String name : roles.split("\\" + UserRecordReader.ROLE_SEPARATOR)) {
+            if (!name.isBlank()) {
+                names.add(name.trim());
+            }
+        }
+        return names;
+    }
+
+    private void importChunk(List<ImportRow> chunk, ImportResult result) {
+        Set<String> usernames = chunk.stream().map(row -> row.user.getUsername()).collect(Collectors.toSet());
+        Set<String> taken = repository.findExistingUsernames(usernames);
+
+        Map<String, ImportRow> accepted = new LinkedHashMap<>();
+        for (ImportRow row : chunk) {
+            String username = row.user.getUsername();
+            if (taken.contains(username)) {
+                reject(result, row.line, username, "Username not available");
+            } else if (accepted.putIfAbsent(username, row) != null) {
+                reject(result, row.line, username, "Duplicate username in input");
+            }
+        }
+        List<ImportRow> rows = new ArrayList<>(accepted.values());
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<String> hashes;
+        try {
+            hashes = passwordEncoder.encodeAll(rows.stream().map(row -> row.user.getPassword()).collect(Collectors.toList()));
+        } catch (PasswordHashingUnavailableException e) {
+            rejectAll(result, rows, e.getMessage());
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < rows.size(); i++) {
+            User user = rows.get(i).user;
+            user.setPassword(hashes.get(i));
+            // Stateless sessions skip entity listeners, so the auditing fields are set here
+            user.setCreatedOn(now);
+            user.setLastModifiedOn(now);
+        }
+
+        try {
+            insert(rows);
+        } catch (RuntimeException e) {
+            log.warn("Import batch of {} users failed", rows.size(), e);
+            rejectAll(result, rows, "Could not be saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            return;
+        }
+        result.setImported(result.getImported() + rows.size());
+        for (ImportRow row : rows) {
+            eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.CREATED, row.user));
+        }
+    }
+
+    private void insert(List<ImportRow> rows) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(batchSize);
+            Transaction transaction = session.beginTransaction();
+            try {
+                for (ImportRow row : rows) {
+                    // Stateless inserts do not seed the @Version
+                    row.user.setVersion(0L);
+                    session.insert(row.user);
+                }
+                // Stateless sessions ignore collections: send the pending user inserts so the
+                // join rows below can reference them, then write the join rows as one batch
+                ((SharedSessionContractImplementor) session).getJdbcCoordinator().executeBatch();
+                session.doWork(connection -> insertRoles(connection, rows));
+                transaction.commit();
+            } catch (RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void insertRoles(Connection connection, List<ImportRow> rows) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_USER_ROLE)) {
+            int pending = 0;
+            for (ImportRow row : rows) {
+                for (Role role : row.user.getRoles()) {
+                    statement.setLong(1, row.user.getId());
+                    statement.setLong(2, role.getId());
+                    statement.addBatch();
+                    if (++pending % batchSize == 0) {
+                        statement.executeBatch();
+                    }
+                }
+            }
+            if (pending % batchSize != 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    private void rejectAll(ImportResult result, List<ImportRow> rows, String message) {
+        for (ImportRow row : rows) {
+            reject(result, row.line, row.user.getUsername(), message);
+        }
+    }
+
+    private void reject(ImportResult result, long line, String username, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new ImportResult.RowError(line, username, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static final class ImportRow {
+        private final long line;
+        private final User user;
+
+        private ImportRow(long line, User user) {
+            this.line = line;
+            this.user = user;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.hendisantika.usermanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hendisantika.usermanagement.dto.UserFileFormat;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads user rows one line at a time from a CSV (header line first) or NDJSON stream,
+ * so an import never holds more than the current line in memory.
+ * Multi-valued fields such as {@code roles} are separated by {@code |}.
+ */
+abstract class UserRecordReader implements Closeable {
+
+    static final String ROLE_SEPARATOR = "|";
+
+    private final BufferedReader reader;
+    private long lineNumber;
+
+    private UserRecordReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    static UserRecordReader open(InputStream input, UserFileFormat format, ObjectMapper objectMapper) throws IOException {
+        if (format == UserFileFormat.CSV) {
+            return new CsvReader(input);
+        }
+        return new NdjsonReader(input, objectMapper);
+    }
+
+    /**
+     * @return the next non-blank line as a record, or {@code null} at the end of the stream
+     */
+    UserRecord next() throws IOException {
+        String line = nextLine();
+        if (line == null) {
+            return null;
+        }
+        try {
+            return new UserRecord(lineNumber, parse(line), null);
+        } catch (IllegalArgumentException e) {
+            return new UserRecord(lineNumber, Map.of(), e.getMessage());
+        }
+    }
+
+    String nextLine() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+        } while (line != null && line.isBlank());
+        return line;
+    }
+
+    abstract Map<String, String> parse(String line);
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * One input row; {@code error} is set instead of {@code values} when the line could not be parsed.
+     */
+    static final class UserRecord {
+        final long line;
+        final Map<String, String> values;
+        final String error;
+
+        UserRecord(long line, Map<String, String> values, String error) {
+            this.line = line;
+            this.values = values;
+            this.error = error;
+        }
+    }
+
+    private static final class CsvReader extends UserRecordReader {
+        private final List<String> header;
+
+        private CsvReader(InputStream input) throws IOException {
+            super(input);
+            String line = nextLine();
+            if (line == null) {
+                throw new IllegalArgumentException("CSV input must start with a header line");
+            }
+            List<String> columns = new ArrayList<>();
+            for (String column : split(line.startsWith("\uFEFF") ? line.substring(1) : line)) {
+                columns.add(column.trim());
+            }
+            this.header = columns;
+        }
+
+        @Override
+        Map<String, String> parse(String line) {
+            List<String> fields = split(line);
+            if (fields.size() != header.size()) {
+                throw new IllegalArgumentException("Expected " + header.size() + " columns but found " + fields.size());
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                values.put(header.get(i), fields.get(i));
+            }
+            return values;
+        }
+
+        /**
+         * RFC 4180 fields: comma separated, optionally double-quoted with {@code ""} as an escaped quote.
+         * Quoted fields cannot span lines. A quoted field escaped as a formula by {@link UserRecordWriter}
+         * loses its escape.
+         */
+        private static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    fields.add(unescape(field.toString(), wasQuoted));
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quoted field");
+            }
+            fields.add(unescape(field.toString(), wasQuoted));
+            return fields;
+        }
+
+        private static String unescape(String field, boolean quoted) {
+            if (quoted && !field.isEmpty() && field.charAt(0) == UserRecordWriter.FORMULA_ESCAPE
+                    && UserRecordWriter.startsLikeFormula(field.substring(1))) {
+                return field.substring(1);
+            }
+            return field;
+        }
+    }
+
+    private static final class NdjsonReader extends UserRecordReader {
+        private final ObjectMapper objectMapper;
+
+        private NdjsonReader(InputStream input, ObjectMapper objectMapper) {
+            super(input);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Map<String, String> parse(String line) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            Map<String, String> values = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                values.put(field.getKey(), text(field.getValue()));
+            }
+            return values;
+        }
+
+        private static String text(JsonNode value) {
+            if (value.isNull()) {
+                return null;
+            }
+            if (value.isArray()) {
+                List<String> items = new ArrayList<>();
+                value.forEach(item -> items.add(item.asText()));
+                return String.join(ROLE_SEPARATOR, items);
+            }
+            return value.asText();
+        }
+    }
+}
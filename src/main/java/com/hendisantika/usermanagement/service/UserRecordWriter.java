@@ -0,0 +1,166 @@
+package com.hendisantika.usermanagement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hendisantika.usermanagement.dto.UserFileFormat;
+import com.hendisantika.usermanagement.entity.User;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes user rows as CSV (header line first) or NDJSON in the layout {@link UserRecordReader} reads,
+ * one row at a time. Never writes the password.
+ * <p>
+ * A CSV field a spreadsheet would run as a formula is written quoted behind a {@value #FORMULA_ESCAPE},
+ * which {@link UserRecordReader} strips again.
+ */
+abstract class UserRecordWriter {
+
+    static final List<String> COLUMNS = List.of(
+            "id", "username", "firstName", "lastName", "email", "roles", "createdOn", "lastModifiedOn");
+
+    static final char FORMULA_ESCAPE = '\'';
+
+    private static final String FORMULA_STARTS = "=+-@\t\r";
+
+    final Writer writer;
+    final List<String> columns;
+
+    private UserRecordWriter(Writer writer, List<String> columns) {
+        this.writer = writer;
+        this.columns = columns;
+    }
+
+    static UserRecordWriter open(Writer writer, UserFileFormat format, List<String> columns,
+                                 ObjectMapper objectMapper) throws IOException {
+        if (format == UserFileFormat.CSV) {
+            return new CsvWriter(writer, columns);
+        }
+        return new NdjsonWriter(writer, columns, objectMapper);
+    }
+
+    abstract void write(User user, List<String> roles) throws IOException;
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    static String value(User user, String column) {
+        Object value;
+        switch (column) {
+            case "id":
+                value = user.getId();
+                break;
+            case "username":
+                value = user.getUsername();
+                break;
+            case "firstName":
+                value = user.getFirstName();
+                break;
+            case "lastName":
+                value = user.getLastName();
+                break;
+            case "email":
+                value = user.getEmail();
+                break;
+            case "createdOn":
+                value = user.getCreatedOn();
+                break;
+            case "lastModifiedOn":
+                value = user.getLastModifiedOn();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown column: " + column);
+        }
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Whether a CSV field has to be escaped: it starts like a formula, or like an escaped one, which must keep
+     * its own escapes through the reader.
+     */
+    static boolean startsLikeFormula(String field) {
+        int start = 0;
+        while (start < field.length() && field.charAt(start) == FORMULA_ESCAPE) {
+            start++;
+        }
+        return start < field.length() && FORMULA_STARTS.indexOf(field.charAt(start)) >= 0;
+    }
+
+    private static final class CsvWriter extends UserRecordWriter {
+
+        private CsvWriter(Writer writer, List<String> columns) throws IOException {
+            super(writer, columns);
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+
+        @Override
+        void write(User user, List<String> roles) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String column = columns.get(i);
+                writeField("roles".equals(column) ? String.join(UserRecordReader.ROLE_SEPARATOR, roles) : value(user, column));
+            }
+            writer.write('\n');
+        }
+
+        private void writeField(String field) throws IOException {
+            if (field == null) {
+                return;
+            }
+            if (startsLikeFormula(field)) {
+                field = FORMULA_ESCAPE + field;
+            } else if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+                writer.write(field);
+                return;
+            }
+            writer.write('"');
+            writer.write(field.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static final class NdjsonWriter extends UserRecordWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonWriter(Writer writer, List<String> columns, ObjectMapper objectMapper) throws IOException {
+            super(writer, columns);
+            // The generator must not close or flush the response stream on its own
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+                    .setRootValueSeparator(null);
+        }
+
+        @Override
+        void write(User user, List<String> roles) throws IOException {
+            generator.writeStartObject();
+            for (String column : columns) {
+                if ("roles".equals(column)) {
+                    generator.writeArrayFieldStart(column);
+                    for (String role : roles) {
+                        generator.writeString(role);
+                    }
+                    generator.writeEndArray();
+                } else if ("id".equals(column)) {
+                    generator.writeNumberField(column, user.getId());
+                } else {
+                    generator.writeStringField(column, value(user, column));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+            super.flush();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.hendisantika.usermanagement.service;
+
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
+import com.hendisantika.usermanagement.event.UsersBulkChangedEvent;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index for type-ahead search over first name, last name, username and the local part
+ * of the email (the domain is left out: it is shared by too many users to be worth a posting list).
+ * <p>
+ * Every field is lowercased and split into letter/digit tokens. A query matches a user when each of its
+ * tokens is a prefix of one of the user's tokens. The most selective query token is looked up as a key range
+ * of the sorted token map, the others are checked against the user's own tokens, so a query touches only the
+ * candidates it returns plus those it rejects, bounded by {@link #MAX_CANDIDATES}.
+ * <p>
+ * Posting lists are immutable sorted id arrays replaced on write, so searches read without locking while
+ * a single writer applies {@link UserChangedEvent}s. Built at startup from a projection of the user table.
+ */
+@Slf4j
+@Component
+public class UserSearchIndex {
+
+    static final int MAX_CANDIDATES = 50_000;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Rough per-entry heap costs used by getEstimatedSizeInBytes(): a token is a skip list node plus a short String
+    private static final int TOKEN_OVERHEAD = 104;
+    private static final int POSTING_BYTES = 8;
+    private static final int USER_OVERHEAD = 80;
+    private static final int USER_TOKEN_BYTES = 4;
+
+    private final UserRepository repository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ConcurrentSkipListMap<String, long[]> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, String[]> userTokens = new ConcurrentHashMap<>();
+
+    private volatile long postingCount;
+
+    public UserSearchIndex(UserRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Bulk build: posting lists grow in buffers and are sorted once at the end, instead of being copied
+     * on every insert.
+     */
+    @PostConstruct
+    public synchronized void init() {
+        long start = System.nanoTime();
+        Map<String, IdBuffer> buffers = new HashMap<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = repository.streamAllSearchFields()) {
+                rows.forEach(row -> {
+                    Long id = (Long) row[0];
+                    Set<String> tokens = tokensOf((String) row[1], (String) row[2], (String) row[3], (String) row[4]);
+                    String[] stored = new String[tokens.size()];
+                    int i = 0;
+                    for (String token : tokens) {
+                        IdBuffer buffer = buffers.computeIfAbsent(token, IdBuffer::new);
+                        buffer.add(id);
+                        stored[i++] = buffer.token;
+                    }
+                    userTokens.put(id, stored);
+                    postingCount += stored.length;
+                });
+            }
+        });
+        buffers.values().forEach(buffer -> postings.put(buffer.token, buffer.toSortedArray()));
+        log.info("User search index built with {} users and {} tokens in {} ms, about {} MB", userTokens.size(),
+                postings.size(), (System.nanoTime() - start) / 1_000_000, getEstimatedSizeInBytes() / (1024 * 1024));
+    }
+
+    /**
+     * Ids of up to {@code limit} users matching every token of {@code query} by prefix, ordered by the
+     * matched token and then by id.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // Walk the term with the fewest postings, checking the others against each candidate's tokens
+        String lead = terms.get(0);
+        long fewest = terms.size() > 1 ? countPostings(lead, MAX_CANDIDATES) : 0;
+        for (String term : terms.subList(1, terms.size())) {
+            long count = countPostings(term, fewest);
+            if (count < fewest) {
+                lead = term;
+                fewest = count;
+            }
+        }
+        List<String> others = new ArrayList<>(terms);
+        others.remove(lead);
+
+        Set<Long> matches = new LinkedHashSet<>();
+        int candidates = 0;
+        for (long[] ids : range(lead).values()) {
+            for (long id : ids) {
+                if (++candidates > MAX_CANDIDATES) {
+                    return new ArrayList<>(matches);
+                }
+                if (!matches.contains(id) && (others.isEmpty() || matchesAll(userTokens.get(id), others))) {
+                    matches.add(id);
+                    if (matches.size() == limit) {
+                        return new ArrayList<>(matches);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    private Map<String, long[]> range(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * Postings under {@code prefix}, counting stops once past {@code cap} so a wide range costs no more
+     * than the narrowest one seen so far.
+     */
+    private long countPostings(String prefix, long cap) {
+        long count = 0;
+        for (long[] ids : range(prefix).values()) {
+            count += ids.length;
+            if (count > cap) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        User user = event.getUser();
+        switch (event.getType()) {
+            case CREATED:
+            case UPDATED:
+                put(user.getId(), user.getFirstName(), user.getLastName(), user.getUsername(), user.getEmail());
+                break;
+            case DELETED:
+                remove(user.getId());
+                break;
+            default:
+                break;
+        }
+    }
+
+    @EventListener
+    public synchronized void onUsersBulkChanged(UsersBulkChangedEvent event) {
+        if (event.getType() == UsersBulkChangedEvent.Type.DELETED) {
+            event.getUsernames().keySet().forEach(this::remove);
+        }
+    }
+
+    synchronized void put(Long id, String firstName, String lastName, String username, String email) {
+        if (id == null) {
+            return;
+        }
+        remove(id);
+        Set<String> tokens = tokensOf(firstName, lastName, username, email);
+        String[] stored = new String[tokens.size()];
+        int i = 0;
+        for (String token : tokens) {
+            // Share the key instance between the token map and the user's token array
+            String key = postings.ceilingKey(token);
+            String shared = token.equals(key) ? key : token;
+            postings.compute(shared, (k, ids) -> with(ids, id));
+            stored[i++] = shared;
+        }
+        userTokens.put(id, stored);
+        postingCount += stored.length;
+    }
+
+    synchronized void remove(Long id) {
+        String[] tokens = userTokens.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            postings.computeIfPresent(token, (k, ids) -> without(ids, id));
+        }
+        postingCount -= tokens.length;
+    }
+
+    private static long[] with(long[] ids, long id) {
+        if (ids == null) {
+            return new long[]{id};
+        }
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return ids;
+        }
+        int insertAt = -index - 1;
+        long[] copy = new long[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, insertAt);
+        copy[insertAt] = id;
+        System.arraycopy(ids, insertAt, copy, insertAt + 1, ids.length - insertAt);
+        return copy;
+    }
+
+    private static long[] without(long[] ids, long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        long[] copy = new long[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, index);
+        System.arraycopy(ids, index + 1, copy, index, ids.length - index - 1);
+        return copy;
+    }
+
+    private static Set<String> tokensOf(String firstName, String lastName, String username, String email) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokens.addAll(tokenize(firstName));
+        tokens.addAll(tokenize(lastName));
+        tokens.addAll(tokenize(username));
+        tokens.addAll(tokenize(localPart(email)));
+        return tokens;
+    }
+
+    private static boolean matchesAll(String[] tokens, List<String> terms) {
+        if (tokens == null) {
+            return false;
+        }
+        for (String term : terms) {
+            boolean found = false;
+            for (String token : tokens) {
+                if (token.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Queries go through the same tokenizer as the indexed fields; anything after an {@code @} is ignored,
+     * like the email domains.
+     */
+    static Set<String> tokenize(String value) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (value == null) {
+            return tokens;
+        }
+        int at = value.indexOf('@');
+        String text = at >= 0 ? value.substring(0, at) : value;
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String localPart(String email) {
+        if (email == null) {
+            return null;
+        }
+        int at = email.indexOf('@');
+        return at >= 0 ? email.substring(0, at) : email;
+    }
+
+    public int getUserCount() {
+        return userTokens.size();
+    }
+
+    public int getTokenCount() {
+        return postings.size();
+    }
+
+    public long getPostingCount() {
+        return postingCount;
+    }
+
+    /**
+     * Estimated heap used by the index: token keys and map nodes, posting entries and the per-user token arrays.
+     */
+    public long getEstimatedSizeInBytes() {
+        long entries = postingCount;
+        return (long) postings.size() * TOKEN_OVERHEAD + entries * (POSTING_BYTES + USER_TOKEN_BYTES)
+                + (long) userTokens.size() * USER_OVERHEAD;
+    }
+
+    private static final class IdBuffer {
+        private final String token;
+        private long[] ids = new long[2];
+        private int size;
+
+        private IdBuffer(String token) {
+            this.token = token;
+        }
+
+        private void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private long[] toSortedArray() {
+            long[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
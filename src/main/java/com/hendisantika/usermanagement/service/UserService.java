@@ -1,34 +1,144 @@
 package com.hendisantika.usermanagement.service;
 
 import com.hendisantika.usermanagement.dto.ChangePasswordForm;
+import com.hendisantika.usermanagement.dto.UserPage;
+import com.hendisantika.usermanagement.dto.UserVersion;
+import com.hendisantika.usermanagement.entity.Role;
 import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
 import com.hendisantika.usermanagement.exception.CustomFieldValidationException;
 import com.hendisantika.usermanagement.exception.UsernameOrIdNotFound;
 import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.security.CurrentUser;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
+@Timed("user.service")
 public class UserService {
 
+    static final int MAX_PAGE_SIZE = 500;
+
     private final UserRepository repository;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final PasswordEncoder bCryptPasswordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserSearchIndex searchIndex;
+    private final TransactionTemplate writeTransaction;
+
+    @Value("${user-management.user-list.page-size:50}")
+    private int defaultPageSize = 50;
 
-    public UserService(UserRepository repository, BCryptPasswordEncoder bCryptPasswordEncoder) {
+    public UserService(UserRepository repository, PasswordEncoder bCryptPasswordEncoder,
+                       ApplicationEventPublisher eventPublisher, UserSearchIndex searchIndex,
+                       PlatformTransactionManager transactionManager) {
         this.repository = repository;
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
     }
 
     // ---------------- READ ----------------
+
+    /**
+     * Seek pagination on {@code id}: the cost of a page does not depend on how deep it is,
+     * unlike OFFSET paging or loading the whole table.
+     *
+     * @param afterId id of the last user on the previous page, {@code null} for the first page
+     * @param size    requested page size, {@code null} for the configured default
+     */
+    @Transactional(readOnly = true)
+    public UserPage getUsersPage(Long afterId, Integer size) {
+        int pageSize = resolvePageSize(size);
+        // Fetch one extra row to know whether a next page exists without a count query
+        List<User> rows = repository.findByIdGreaterThanOrderByIdAsc(
+                afterId == null ? 0L : afterId, Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new UserPage(rows, afterId, null, pageSize);
+        }
+        List<User> content = rows.subList(0, pageSize);
+        return new UserPage(content, afterId, content.get(pageSize - 1).getId(), pageSize);
+    }
+
+    /**
+     * Same page as {@link #getUsersPage(Long, Integer)} with {@code roles} initialized,
+     * in two statements whatever the page size.
+     */
+    @Transactional(readOnly = true)
+    public UserPage getUsersPageWithRoles(Long afterId, Integer size) {
+        UserPage page = getUsersPage(afterId, size);
+        if (!page.getContent().isEmpty()) {
+            List<Long> ids = page.getContent().stream().map(User::getId).collect(Collectors.toList());
+            page.setContent(repository.findWithRolesByIdIn(ids, Sort.by("id")));
+        }
+        return page;
+    }
+
+    /**
+     * ETag of the page {@link #getUsersPage(Long, Integer)} would return, read from the version columns only.
+     */
+    @Transactional(readOnly = true)
+    public String getUsersPageEtag(Long afterId, Integer size) {
+        int pageSize = resolvePageSize(size);
+        List<UserVersion> rows = repository.findVersionsByIdGreaterThanOrderByIdAsc(
+                afterId == null ? 0L : afterId, Limit.of(pageSize + 1));
+        UserEtag etag = new UserEtag();
+        rows.stream().limit(pageSize).forEach(row -> etag.add(row.getId(), row.getLastModifiedOn()));
+        return etag.add(rows.size() > pageSize).build();
+    }
+
+    /**
+     * ETag of one user, read from its version columns only.
+     */
     @Transactional(readOnly = true)
-    public Iterable<User> getAllUsers() {
-        return repository.findAll();
+    public String getUserEtag(Long id) throws UsernameOrIdNotFound {
+        UserVersion version = repository.findVersionById(id)
+                .orElseThrow(() -> new UsernameOrIdNotFound("User id does not exist."));
+        return new UserEtag().add(version.getId(), version.getLastModifiedOn()).build();
+    }
+
+    /**
+     * Prefix search over names, username and email, answered by the in-memory {@link UserSearchIndex};
+     * only the matching users are loaded, by id, in the index order.
+     *
+     * @param size maximum number of results, {@code null} for the configured page size
+     */
+    @Transactional(readOnly = true)
+    public List<User> searchUsers(String query, Integer size) {
+        List<Long> ids = searchIndex.search(query, resolvePageSize(size));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> users = new HashMap<>();
+        repository.findAllById(ids).forEach(user -> users.put(user.getId(), user));
+        return ids.stream().map(users::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private int resolvePageSize(Integer size) {
+        int pageSize = (size == null || size <= 0) ? defaultPageSize : size;
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
     }
 
     @Transactional(readOnly = true)
@@ -41,19 +151,32 @@ public class UserService {
         }
     }
 
+    @Transactional(readOnly = true)
+    public User getUserWithRolesById(Long id) throws UsernameOrIdNotFound {
+        return repository.findWithRolesById(id)
+                .orElseThrow(() -> new UsernameOrIdNotFound("User id does not exist."));
+    }
+
     // ---------------- CREATE ----------------
+
+    /**
+     * Inserts first and lets the unique index on {@code username} settle concurrent signups. The exists
+     * check only spares the password hash when the name is obviously taken; it is not relied upon.
+     * Not transactional on purpose: the insert commits inside {@code save}, so a duplicate surfaces here.
+     */
+    @Timed(value = "user.signup", description = "User creation, including the password hash", histogram = true)
     public User createUser(User user) throws Exception {
-        validateUsernameAndPassword(user);
+        validatePassword(user);
+        if (repository.existsByUsername(user.getUsername())) {
+            throw usernameNotAvailable();
+        }
         user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
-        return repository.save(user);
+        User created = saveWithUniqueUsername(user);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.CREATED, created));
+        return created;
     }
 
-    private void validateUsernameAndPassword(User user) throws Exception {
-        Optional<User> existingUser = repository.findByUsername(user.getUsername());
-        if (existingUser.isPresent()) {
-            throw new CustomFieldValidationException("Username not available", "username");
-        }
-
+    private void validatePassword(User user) throws Exception {
         if (user.getConfirmPassword() == null || user.getConfirmPassword().isEmpty()) {
             throw new CustomFieldValidationException("Confirm Password is required", "confirmPassword");
         }
@@ -64,18 +187,85 @@ public class UserService {
     }
 
     // ---------------- UPDATE ----------------
-    public User updateUser(User fromUser) throws Exception {
-        User toUser = getUserById(fromUser.getId());
-        mapUser(fromUser, toUser);
-        return repository.save(toUser);
+
+    /**
+     * Applies the non-null fields of {@code changes} to the user with its id, in one transaction: the row is
+     * read, and only the columns that differ are written (dynamic update), plus {@code user_roles} when the
+     * role set differs. An edit that changes nothing writes nothing. The changes go through the session, so
+     * on commit Hibernate updates the cached user and its username lookup, and evicts its cached roles.
+     * <p>
+     * When {@code changes} carries a {@code version}, it must be the stored one: an edit based on a stale
+     * read fails instead of silently overwriting the other change.
+     *
+     * @throws OptimisticLockingFailureException if the user was changed since {@code changes.getVersion()}
+     */
+    public User updateUser(User changes) throws Exception {
+        UserChangedEvent event;
+        try {
+            event = writeTransaction.execute(status -> applyChanges(changes));
+        } catch (DataIntegrityViolationException e) {
+            if (isUsernameConstraint(e)) {
+                throw usernameNotAvailable();
+            }
+            throw e;
+        }
+        if (event == null) {
+            throw new UsernameOrIdNotFound("User id does not exist.");
+        }
+        eventPublisher.publishEvent(event);
+        return event.getUser();
+    }
+
+    private UserChangedEvent applyChanges(User changes) {
+        User user = repository.findById(changes.getId()).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        if (changes.getVersion() != null && !changes.getVersion().equals(user.getVersion())) {
+            throw new OptimisticLockingFailureException("User " + user.getId() + " was changed by someone else, "
+                    + "reload it and try again.");
+        }
+        String previousUsername = user.getUsername();
+        if (mapUser(changes, user)) {
+            // A roles-only change leaves the row itself clean, so auditing alone would not move the timestamp
+            user.setLastModifiedOn(LocalDateTime.now());
+        }
+        return new UserChangedEvent(UserChangedEvent.Type.UPDATED, user, previousUsername);
+    }
+
+    /**
+     * Copies the non-null fields that differ.
+     *
+     * @return whether anything changed
+     */
+    protected boolean mapUser(User from, User to) {
+        boolean changed = false;
+        if (from.getUsername() != null && !from.getUsername().equals(to.getUsername())) {
+            to.setUsername(from.getUsername());
+            changed = true;
+        }
+        if (from.getFirstName() != null && !from.getFirstName().equals(to.getFirstName())) {
+            to.setFirstName(from.getFirstName());
+            changed = true;
+        }
+        if (from.getLastName() != null && !from.getLastName().equals(to.getLastName())) {
+            to.setLastName(from.getLastName());
+            changed = true;
+        }
+        if (from.getEmail() != null && !from.getEmail().equals(to.getEmail())) {
+            to.setEmail(from.getEmail());
+            changed = true;
+        }
+        // Replacing the collection rewrites every user_roles row, so only do it when the set really differs
+        if (from.getRoles() != null && !roleIds(from.getRoles()).equals(roleIds(to.getRoles()))) {
+            to.setRoles(from.getRoles());
+            changed = true;
+        }
+        return changed;
     }
 
-    protected void mapUser(User from, User to) {
-        to.setUsername(from.getUsername());
-        to.setFirstName(from.getFirstName());
-        to.setLastName(from.getLastName());
-        to.setEmail(from.getEmail());
-        to.setRoles(from.getRoles());
+    private static Set<Long> roleIds(Set<Role> roles) {
+        return roles == null ? Set.of() : roles.stream().map(Role::getId).collect(Collectors.toSet());
     }
 
     // ---------------- DELETE ----------------
@@ -83,13 +273,14 @@ public class UserService {
     public void deleteUser(Long id) throws UsernameOrIdNotFound {
         User user = getUserById(id);
         repository.delete(user);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.DELETED, user));
     }
 
     // ---------------- CHANGE PASSWORD ----------------
     public User changePassword(ChangePasswordForm form) throws Exception {
         User user = getUserById(form.getId());
 
-        if (!isLoggedUserADMIN() && !bCryptPasswordEncoder.matches(form.getCurrentPassword(), user.getPassword())) {
+        if (!CurrentUser.get().isAdmin() && !bCryptPasswordEncoder.matches(form.getCurrentPassword(), user.getPassword())) {
             throw new Exception("Current Password invalid.");
         }
 
@@ -102,31 +293,49 @@ public class UserService {
         }
 
         user.setPassword(bCryptPasswordEncoder.encode(form.getNewPassword()));
-        return repository.save(user);
+        User updated = repository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.PASSWORD_CHANGED, updated));
+        return updated;
     }
 
     // ---------------- UTILITIES ----------------
-    private boolean isLoggedUserADMIN() {
-        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (principal instanceof UserDetails) {
-            UserDetails loggedUser = (UserDetails) principal;
-            return loggedUser.getAuthorities().stream()
-                    .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+    private User saveWithUniqueUsername(User user) throws CustomFieldValidationException {
+        try {
+            return repository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isUsernameConstraint(e)) {
+                throw usernameNotAvailable();
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isUsernameConstraint(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String constraint = ((ConstraintViolationException) cause).getConstraintName();
+                return constraint != null && constraint.toLowerCase(Locale.ROOT).contains(User.USERNAME_CONSTRAINT);
+            }
         }
         return false;
     }
 
+    private static CustomFieldValidationException usernameNotAvailable() {
+        return new CustomFieldValidationException("Username not available", "username");
+    }
+
     public User getLoggedUser() throws Exception {
-        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (principal instanceof UserDetails) {
-            UserDetails loggedUser = (UserDetails) principal;
-            Optional<User> userOptional = repository.findByUsername(loggedUser.getUsername());
-            if (userOptional.isPresent()) {
-                return userOptional.get();
-            } else {
-                throw new Exception("Logged-in user not found in DB.");
-            }
+        CurrentUser current = CurrentUser.get();
+        if (!current.isAuthenticated()) {
+            throw new Exception("No logged-in user found.");
+        }
+        // Loaded once per request, by id when the principal carries it
+        User user = current.getUser(() -> (current.getId() != null
+                ? repository.findById(current.getId())
+                : repository.loadByUsername(current.getUsername())).orElse(null));
+        if (user == null) {
+            throw new Exception("Logged-in user not found in DB.");
         }
-        throw new Exception("No logged-in user found.");
+        return user;
     }
 }
@@ -0,0 +1,124 @@
+package com.hendisantika.usermanagement.service;
+
+import com.hendisantika.usermanagement.event.UserChangedEvent;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Username availability for the signup form, answered from a Bloom filter of every existing username.
+ * A name the filter has never seen is available without a query; only a possible match is confirmed
+ * with an exists query. The filter is built at startup and fed by {@link UserChangedEvent}s. Deletes
+ * and renames leave the old name's bits set, which only costs a confirmation query until the next
+ * {@link #rebuild()}.
+ */
+@Slf4j
+@Service
+public class UsernameAvailabilityService {
+
+    private final UserRepository repository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder confirmedTaken = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public UsernameAvailabilityService(UserRepository repository, PlatformTransactionManager transactionManager,
+                                       @Value("${user-management.username-filter.expected-insertions:1000000}") long expectedInsertions,
+                                       @Value("${user-management.username-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * Builds a new filter from the {@code users} table, sized for at least twice the current number of users,
+     * and swaps it in. Usernames added while the table is scanned go to both filters.
+     */
+    public synchronized void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, repository.count() * 2), falsePositiveRate);
+        building = rebuilt;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> usernames = repository.streamAllUsernames()) {
+                    usernames.forEach(rebuilt::put);
+                }
+            });
+            filter = rebuilt;
+        } finally {
+            building = null;
+        }
+        log.info("Username filter built with {} names in {} KB", rebuilt.insertions(), rebuilt.sizeInBytes() / 1024);
+    }
+
+    public boolean isAvailable(String username) {
+        if (!filter.mightContain(username)) {
+            filtered.increment();
+            return true;
+        }
+        if (repository.existsByUsername(username)) {
+            confirmedTaken.increment();
+            return false;
+        }
+        falsePositives.increment();
+        return true;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.CREATED || event.getType() == UserChangedEvent.Type.UPDATED) {
+            add(event.getUser().getUsername());
+        }
+    }
+
+    private void add(String username) {
+        if (username == null) {
+            return;
+        }
+        filter.put(username);
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(username);
+        }
+    }
+
+    public long getFilteredCount() {
+        return filtered.sum();
+    }
+
+    public long getConfirmedTakenCount() {
+        return confirmedTaken.sum();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        return filter.expectedFalsePositiveRate();
+    }
+
+    public long getSizeInBytes() {
+        return filter.sizeInBytes();
+    }
+}
@@ -0,0 +1,9 @@
+-- The user_roles primary key leads with role_id: loading the roles of a user needs its own index
+-- (it replaces the one InnoDB created implicitly for the foreign key)
+create index idx_user_roles_user_id on user_roles (user_id);
+create index idx_users_email on users (email);
+create index idx_users_created_on on users (created_on);
+alter table role add constraint uk_role_name unique (name);
+-- Logins look users up by username. Databases from ddl-auto=update have no such constraint: remove duplicate
+-- usernames before upgrading, or this migration fails.
+alter table users add constraint uk_users_username unique (username);
@@ -0,0 +1,2 @@
+-- Optimistic lock of User; existing rows start at version 0
+alter table users add column version bigint default 0 not null;
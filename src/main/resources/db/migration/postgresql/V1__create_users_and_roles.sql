@@ -0,0 +1,30 @@
+-- Schema as previously created by ddl-auto=update; existing databases are baselined at this version.
+-- Ids come from the shared pooled sequence Hibernate uses for the "native" generator.
+create sequence native start with 1 increment by 50;
+
+create table role (
+    id          bigint not null,
+    name        varchar(255),
+    description varchar(255),
+    constraint pk_role primary key (id)
+);
+
+create table users (
+    id               bigint       not null,
+    first_name       varchar(15)  not null,
+    last_name        varchar(15)  not null,
+    email            varchar(255) not null,
+    username         varchar(255) not null,
+    password         varchar(255) not null,
+    created_on       timestamp(6),
+    last_modified_on timestamp(6),
+    constraint pk_users primary key (id)
+);
+
+create table user_roles (
+    role_id bigint not null,
+    user_id bigint not null,
+    constraint pk_user_roles primary key (role_id, user_id),
+    constraint fk_user_roles_role foreign key (role_id) references role (id),
+    constraint fk_user_roles_user foreign key (user_id) references users (id)
+);
@@ -0,0 +1,86 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.security.AuthenticationTokenService;
+import com.hendisantika.usermanagement.security.UserPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthenticationTokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    private final AuthenticationTokenService tokens = new AuthenticationTokenService(true, Duration.ofMinutes(15), SECRET);
+
+    @Test
+    void verify_returnsIssuedClaims() {
+        String token = tokens.issue(principal(), NOW);
+
+        AuthenticationTokenService.Claims claims = tokens.verify(token, NOW.plusSeconds(60));
+
+        assertNotNull(claims);
+        assertEquals(42L, claims.getUserId());
+        assertEquals("imane", claims.getUsername());
+        assertEquals(List.of("ROLE ADMIN", "ROLE USER"), claims.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).sorted().collect(Collectors.toList()));
+        assertEquals(NOW.plus(Duration.ofMinutes(15)), claims.getExpiresAt());
+        assertEquals(42L, claims.toPrincipal().getId());
+    }
+
+    @Test
+    void verify_rejectsExpiredToken() {
+        String token = tokens.issue(principal(), NOW);
+
+        assertNull(tokens.verify(token, NOW.plus(Duration.ofMinutes(15))));
+    }
+
+    @Test
+    void verify_rejectsTamperedClaims() {
+        String token = tokens.issue(principal(), NOW);
+        String[] parts = token.split("\\.");
+        String claims = new String(Base64.getUrlDecoder().decode(parts[1])).replace("\"42\"", "\"1\"");
+        String forged = parts[0] + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(claims.getBytes())
+                + "." + parts[2];
+
+        assertNull(tokens.verify(forged, NOW));
+        assertNull(tokens.verify("not.a-token", NOW));
+    }
+
+    @Test
+    void verify_rejectsTokenOfAnotherKey() {
+        String otherSecret = Base64.getEncoder().encodeToString("another secret of thirty-two byte".getBytes());
+        String token = new AuthenticationTokenService(true, Duration.ofMinutes(15), otherSecret).issue(principal(), NOW);
+
+        assertNull(tokens.verify(token, NOW));
+    }
+
+    @Test
+    void needsRenewal_afterHalfTheLifetime() {
+        AuthenticationTokenService.Claims claims = tokens.verify(tokens.issue(principal(), NOW), NOW);
+
+        assertFalse(tokens.needsRenewal(claims, NOW.plus(Duration.ofMinutes(7))));
+        assertTrue(tokens.needsRenewal(claims, NOW.plus(Duration.ofMinutes(8))));
+    }
+
+    @Test
+    void constructor_rejectsShortSecret() {
+        String shortSecret = Base64.getEncoder().encodeToString(new byte[16]);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new AuthenticationTokenService(true, Duration.ofMinutes(15), shortSecret));
+    }
+
+    private static UserPrincipal principal() {
+        return new UserPrincipal(42L, "imane", "", List.of(
+                new SimpleGrantedAuthority("ROLE USER"), new SimpleGrantedAuthority("ROLE ADMIN")));
+    }
+}
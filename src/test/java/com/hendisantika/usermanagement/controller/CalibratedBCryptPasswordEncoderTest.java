@@ -0,0 +1,46 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.security.CalibratedBCryptPasswordEncoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalibratedBCryptPasswordEncoderTest {
+
+    @Test
+    void calibrate_staysWithinBounds() {
+        assertEquals(4, CalibratedBCryptPasswordEncoder.calibrate(Duration.ofNanos(1), 4, 6));
+        assertEquals(6, CalibratedBCryptPasswordEncoder.calibrate(Duration.ofMinutes(1), 4, 6));
+    }
+
+    @Test
+    void upgradeEncoding_onlyWhenCostIsLower() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+        assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret")));
+        assertTrue(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    void delegatingEncoder_verifiesAndUpgradesLegacyUnprefixedHashes() {
+        CalibratedBCryptPasswordEncoder bcrypt = new CalibratedBCryptPasswordEncoder(5);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.<String, PasswordEncoder>of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        String legacy = new BCryptPasswordEncoder(5).encode("secret");
+        String current = encoder.encode("secret");
+
+        assertTrue(current.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(encoder.matches("secret", legacy));
+        assertTrue(encoder.upgradeEncoding(legacy));
+        assertFalse(encoder.upgradeEncoding(current));
+    }
+}
@@ -0,0 +1,79 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.security.CurrentUser;
+import com.hendisantika.usermanagement.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurrentUserTest {
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void get_resolvesOncePerRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        login("imane", "ROLE_ADMIN", "ROLE_USER");
+
+        CurrentUser current = CurrentUser.get();
+
+        assertSame(current, CurrentUser.get());
+        assertSame(current, request.getAttribute(CurrentUser.ATTRIBUTE));
+        assertEquals(42L, current.getId());
+        assertEquals("imane", current.getUsername());
+        assertEquals(Set.of("ROLE_ADMIN", "ROLE_USER"), current.getRoles());
+        assertTrue(current.isAdmin());
+        assertTrue(current.hasRole("USER"));
+        assertTrue(current.hasRole("ROLE_USER"));
+    }
+
+    @Test
+    void get_resolvesAgainWhenAuthenticationChanges() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        login("imane", "ROLE_ADMIN");
+        CurrentUser admin = CurrentUser.get();
+
+        login("bob", "ROLE_USER");
+        CurrentUser user = CurrentUser.get();
+
+        assertNotSame(admin, user);
+        assertEquals("bob", user.getUsername());
+        assertFalse(user.isAdmin());
+    }
+
+    @Test
+    void get_withoutAuthenticationIsAnonymous() {
+        CurrentUser current = CurrentUser.get();
+
+        assertFalse(current.isAuthenticated());
+        assertFalse(current.isAdmin());
+        assertNull(current.getUsername());
+        assertTrue(current.getRoles().isEmpty());
+    }
+
+    private static void login(String username, String... roles) {
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+        for (String role : roles) {
+            authorities.add(new SimpleGrantedAuthority(role));
+        }
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                new UserPrincipal(42L, username, "", authorities), null, authorities));
+    }
+}
@@ -0,0 +1,56 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.exception.PasswordHashingUnavailableException;
+import com.hendisantika.usermanagement.security.LoginFailureHandler;
+import com.hendisantika.usermanagement.security.LoginSuccessHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void successHandler_countsAndRedirects() throws Exception {
+        LoginSuccessHandler handler = new LoginSuccessHandler("/userForm", registry);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handler.onAuthenticationSuccess(new MockHttpServletRequest(), response,
+                new TestingAuthenticationToken("imane", null));
+
+        assertEquals("/userForm", response.getRedirectedUrl());
+        assertEquals(1, registry.get("user.login.attempts").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void failureHandler_countsBadCredentialsAndRedirects() throws Exception {
+        LoginFailureHandler handler = new LoginFailureHandler("/login?error=true", registry);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handler.onAuthenticationFailure(new MockHttpServletRequest(), response, new BadCredentialsException("bad"));
+
+        assertEquals("/login?error=true", response.getRedirectedUrl());
+        assertEquals(1, registry.get("user.login.attempts")
+                .tags("outcome", "failure", "reason", "BadCredentialsException").counter().count());
+    }
+
+    @Test
+    void failureHandler_answersSaturatedHashingWith503() throws Exception {
+        LoginFailureHandler handler = new LoginFailureHandler("/login?error=true", registry);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        handler.onAuthenticationFailure(new MockHttpServletRequest(), response,
+                new InternalAuthenticationServiceException("busy", new PasswordHashingUnavailableException("busy")));
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals(1, registry.get("user.login.attempts").tag("reason", "unavailable").counter().count());
+    }
+}
@@ -0,0 +1,184 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.security.LoginThrottle;
+import com.hendisantika.usermanagement.security.LoginThrottlingFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void username_allowsBurstThenThrottlesIgnoringCase() {
+        LoginThrottle throttle = throttle(100, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, throttle.acquireUsername("imane"));
+        }
+        long retryAfter = throttle.acquireUsername(" IMANE ");
+
+        assertTrue(retryAfter > 0 && retryAfter <= Duration.ofHours(1).toNanos());
+        assertEquals(0, throttle.acquireUsername("other"));
+    }
+
+    @Test
+    void username_refillsAfterPeriod() throws InterruptedException {
+        LoginThrottle throttle = new LoginThrottle(true, 1024, 100, Duration.ofHours(1), 1, Duration.ofMillis(200));
+        assertEquals(0, throttle.acquireUsername("imane"));
+        long retryAfter = throttle.acquireUsername("imane");
+        assertTrue(retryAfter > 0);
+
+        TimeUnit.NANOSECONDS.sleep(retryAfter + TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(0, throttle.acquireUsername("imane"));
+    }
+
+    @Test
+    void release_givesTheAttemptBack() {
+        LoginThrottle throttle = throttle(1, 1);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, throttle.acquireAddress("10.0.0.1"));
+            assertEquals(0, throttle.acquireUsername("Imane"));
+            throttle.release("imane", "10.0.0.1");
+        }
+        // Never more than the capacity, however many releases
+        throttle.release("imane", "10.0.0.1");
+        assertEquals(0, throttle.acquireUsername("imane"));
+        assertTrue(throttle.acquireUsername("imane") > 0);
+    }
+
+    @Test
+    void address_throttlesSprayAcrossUsernames() {
+        LoginThrottle throttle = throttle(10, 3);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, throttle.acquireAddress("10.0.0.1"));
+        }
+
+        assertTrue(throttle.acquireAddress("10.0.0.1") > 0);
+        assertEquals(0, throttle.acquireAddress("10.0.0.2"));
+        assertTrue(throttle.getActiveAddressBuckets() >= 2);
+    }
+
+    @Test
+    void filter_rejectsOverBudgetAttemptsBeforeAuthentication() throws Exception {
+        LoginThrottlingFilter filter = new LoginThrottlingFilter(throttle(100, 2), "/login", "username", registry);
+
+        // Still in flight or failed: the attempts are charged either way
+        assertNotNull(login(filter, "imane").getRequest());
+        assertNotNull(login(filter, "imane").getRequest());
+        MockFilterChain throttled = login(filter, "imane");
+
+        assertNull(throttled.getRequest(), "the login filter must not run");
+        assertEquals(1, registry.get("user.login.attempts")
+                .tags("outcome", "throttled", "reason", "username").counter().count());
+    }
+
+    @Test
+    void filter_successfulLoginsGetTheirAttemptBack() throws Exception {
+        LoginThrottle throttle = throttle(1, 1);
+        LoginThrottlingFilter filter = new LoginThrottlingFilter(throttle, "/login", "username", registry);
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = loginRequest("imane");
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            try {
+                filter.doFilter(request, response, (req, res) -> throttle.onAuthenticationSuccess(new AuthenticationSuccessEvent(
+                        UsernamePasswordAuthenticationToken.authenticated("imane", null, List.of()))));
+                assertEquals(200, response.getStatus());
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        }
+        assertEquals(0, throttle.acquireUsername("imane"));
+    }
+
+    @Test
+    void filter_answers429WithRetryAfter() throws Exception {
+        LoginThrottlingFilter filter = new LoginThrottlingFilter(throttle(1, 100), "/login", "username", registry);
+        login(filter, "imane");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest("someone"), response, new MockFilterChain());
+
+        assertEquals(429, response.getStatus());
+        assertEquals("3600", response.getHeader("Retry-After"));
+        assertEquals(1, registry.get("user.login.attempts").tag("reason", "ip").counter().count());
+    }
+
+    @Test
+    void basicFilter_throttlesTheUsernameOfTheCredentials() throws Exception {
+        LoginThrottlingFilter filter = LoginThrottlingFilter.forHttpBasic(throttle(100, 1), registry);
+        filter.doFilter(basicRequest("imane:wrong"), new MockHttpServletResponse(), new MockFilterChain());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(basicRequest("IMANE:secret"), response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(429, response.getStatus());
+        chain = new MockFilterChain();
+        filter.doFilter(basicRequest("other:secret"), new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void filter_ignoresOtherRequests() throws Exception {
+        LoginThrottle throttle = throttle(1, 1);
+
+        for (LoginThrottlingFilter filter : List.of(
+                new LoginThrottlingFilter(throttle, "/login", "username", registry),
+                LoginThrottlingFilter.forHttpBasic(throttle, registry))) {
+            for (int i = 0; i < 3; i++) {
+                MockFilterChain chain = new MockFilterChain();
+                filter.doFilter(new MockHttpServletRequest("GET", "/login"), new MockHttpServletResponse(), chain);
+                assertNotNull(chain.getRequest());
+            }
+        }
+    }
+
+    private LoginThrottle throttle(int addressCapacity, int usernameCapacity) {
+        return new LoginThrottle(true, 1024, addressCapacity, Duration.ofHours(1), usernameCapacity, Duration.ofHours(1));
+    }
+
+    private static MockFilterChain login(LoginThrottlingFilter filter, String username) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(loginRequest(username), new MockHttpServletResponse(), chain);
+        return chain;
+    }
+
+    private static MockHttpServletRequest loginRequest(String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setRemoteAddr("10.0.0.1");
+        request.addParameter("username", username);
+        request.addParameter("password", "secret");
+        return request;
+    }
+
+    private static MockHttpServletRequest basicRequest(String credentials) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("Authorization",
+                "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        return request;
+    }
+}
@@ -0,0 +1,111 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * HTTP Basic for scrapers and scripts on the actuator, API and admin paths, and form login only everywhere else.
+ */
+@SpringBootTest(properties = "user-management.password-hashing.bcrypt.strength=4")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class MachineClientSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void seed() {
+        seed("scraper", "ADMIN");
+        seed("viewer", RoleRegistry.USER);
+    }
+
+    @Test
+    void health_isPublic() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void metrics_needAnAdmin() throws Exception {
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics").with(httpBasic("viewer", "secret")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").with(httpBasic("scraper", "secret")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void api_acceptsBasic() throws Exception {
+        mockMvc.perform(get("/api/users").with(httpBasic("viewer", "secret")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void basicPasswordGuesses_areThrottled() throws Exception {
+        seed("guessed", RoleRegistry.USER);
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/api/users").with(httpBasic("guessed", "guess" + i)))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(get("/api/users").with(httpBasic("guessed", "secret")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+        mockMvc.perform(get("/api/users").with(httpBasic("viewer", "secret")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void basicClients_loggingInSuccessfully_areNotThrottled() throws Exception {
+        for (int i = 0; i < 8; i++) {
+            mockMvc.perform(get("/api/users").with(httpBasic("viewer", "secret")))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void browserPages_ignoreBasic() throws Exception {
+        mockMvc.perform(get("/userForm").with(httpBasic("viewer", "secret")))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrlPattern("**/login"));
+    }
+
+    private void seed(String username, String roleName) {
+        if (userRepository.findByUsername(username).isEmpty()) {
+            User user = new User();
+            user.setFirstName(username);
+            user.setLastName("Client");
+            user.setEmail(username + "@example.com");
+            user.setUsername(username);
+            user.setPassword(passwordEncoder.encode("secret"));
+            user.setRoles(Set.of(roleRegistry.findByName(roleName).orElseThrow()));
+            userRepository.save(user);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.hendisantika.usermanagement.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * SQL budget of a test method, checked by {@link SqlStatementBudgetExtension}. Statements issued by
+ * {@code @BeforeEach} and {@code @AfterEach} methods are not counted.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxSqlStatements {
+
+    /**
+     * Maximum number of statements the test body may execute.
+     */
+    int value();
+
+    /**
+     * Maximum executions of any single statement; keep it below the number of rows involved to catch N+1 queries.
+     */
+    int maxRepeats() default Integer.MAX_VALUE;
+}
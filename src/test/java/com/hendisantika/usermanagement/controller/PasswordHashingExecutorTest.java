@@ -0,0 +1,91 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.exception.PasswordHashingUnavailableException;
+import com.hendisantika.usermanagement.security.BoundedPasswordEncoder;
+import com.hendisantika.usermanagement.security.PasswordHashingExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PasswordHashingExecutorTest {
+
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_runsTaskOnHashingThreadAndRecordsLatency() {
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5));
+
+        String threadName = executor.execute(() -> Thread.currentThread().getName());
+
+        assertTrue(threadName.startsWith("password-hash-"));
+        assertEquals(1, executor.getCompletedCount());
+        assertTrue(executor.getMaxHashMillis() >= 0);
+    }
+
+    @Test
+    void execute_failsFastWhenQueueIsFull() throws Exception {
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> executor.execute(() -> {
+            started.countDown();
+            await(release);
+            return null;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> executor.execute(() -> null));
+        waitForQueueDepth(1);
+
+        assertThrows(PasswordHashingUnavailableException.class, () -> executor.execute(() -> "rejected"));
+        assertEquals(1, executor.getRejectedCount());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    void boundedPasswordEncoder_delegatesThroughExecutor() {
+        executor = new PasswordHashingExecutor(1, 4, Duration.ofSeconds(5));
+        PasswordEncoder delegate = mock(PasswordEncoder.class);
+        when(delegate.encode("secret")).thenReturn("HASH");
+        when(delegate.matches("secret", "HASH")).thenReturn(true);
+
+        PasswordEncoder encoder = new BoundedPasswordEncoder(delegate, executor);
+
+        assertEquals("HASH", encoder.encode("secret"));
+        assertTrue(encoder.matches("secret", "HASH"));
+        assertEquals(2, executor.getCompletedCount());
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getQueueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, executor.getQueueDepth());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.jdbc.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two embedded databases standing in for the primary and a replica: each holds a row naming itself, so
+ * every read shows where it was routed.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        Routed routed = new Routed(replica, Duration.ofSeconds(5));
+
+        assertEquals("replica", routed.read());
+        assertEquals("primary", routed.readInWriteTransaction());
+        assertEquals("primary", routed.jdbc.queryForObject("select name from node", String.class));
+        assertEquals(1.0, meterRegistry.get("user.datasource.connections").tag("target", "replica").counter().count());
+    }
+
+    @Test
+    void ownWritesAreReadFromThePrimary() {
+        Routed routed = new Routed(replica, Duration.ofSeconds(5));
+        as("ada", "10.0.0.1");
+        routed.write();
+
+        assertEquals("primary", routed.read());
+        as("alan", "10.0.0.2");
+        assertEquals("replica", routed.read());
+        as("ada", "10.0.0.3");
+        assertEquals("primary", routed.read());
+    }
+
+    @Test
+    void ownWritesAreReadFromTheReplicaOnceTheLagHasPassed() throws InterruptedException {
+        Routed routed = new Routed(replica, Duration.ofMillis(100));
+        as("ada", "10.0.0.1");
+        routed.write();
+
+        Thread.sleep(300);
+        assertEquals("replica", routed.read());
+    }
+
+    @Test
+    void anonymousWritesStickByAddress() {
+        Routed routed = new Routed(replica, Duration.ofSeconds(5));
+        as(null, "10.0.0.1");
+        routed.write();
+
+        // The signup is followed by the first requests of the new user, from the same address
+        as("newcomer", "10.0.0.1");
+        assertEquals("primary", routed.read());
+        as(null, "10.0.0.2");
+        assertEquals("replica", routed.read());
+    }
+
+    @Test
+    void readWriteTransactionsThatOnlyReadDoNotStick() {
+        Routed routed = new Routed(replica, Duration.ofSeconds(5));
+        as("ada", "10.0.0.1");
+        assertEquals("primary", routed.readInWriteTransaction());
+
+        assertEquals("replica", routed.read());
+    }
+
+    @Test
+    void preparedWritesStick() {
+        Routed routed = new Routed(replica, Duration.ofSeconds(5));
+        as("ada", "10.0.0.1");
+        routed.transaction.executeWithoutResult(status ->
+                routed.jdbc.update("/* rename */ update node set name = ? where name = ?", "primary", "primary"));
+
+        assertEquals("primary", routed.read());
+    }
+
+    @Test
+    void rolledBackWritesDoNotStick() {
+        Routed routed = new Routed(replica, Duration.ofSeconds(5));
+        as("ada", "10.0.0.1");
+        routed.transaction.executeWithoutResult(status -> {
+            routed.jdbc.update("update node set name = name");
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", routed.read());
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToThePrimary_andIsSkippedForAWhile() {
+        AtomicInteger attempts = new AtomicInteger();
+        DataSource down = new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                attempts.incrementAndGet();
+                throw new SQLException("Connection refused");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return getConnection();
+            }
+        };
+        Routed routed = new Routed(down, Duration.ofSeconds(5));
+
+        assertEquals("primary", routed.read());
+        assertEquals("primary", routed.read());
+        assertEquals(1, attempts.get());
+        assertEquals(2.0, meterRegistry.get("user.datasource.connections").tag("reason", "replica-unavailable")
+                .counter().count());
+    }
+
+    private void as(String username, String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(address);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        SecurityContextHolder.clearContext();
+        if (username != null) {
+            User principal = new User(username, "", List.of(new SimpleGrantedAuthority("ROLE USER")));
+            SecurityContextHolder.getContext().setAuthentication(
+                    UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+        }
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + System.nanoTime())
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("create table node (name varchar(20))");
+        jdbc.update("insert into node (name) values (?)", name);
+        return database;
+    }
+
+    private final class Routed {
+        private final JdbcTemplate jdbc;
+        private final TransactionTemplate transaction;
+        private final TransactionTemplate readOnlyTransaction;
+
+        private Routed(DataSource replica, Duration maxLag) {
+            DataSource dataSource = new LazyConnectionDataSourceProxy(
+                    new ReplicaRoutingDataSource(primary, List.of(replica), maxLag, meterRegistry));
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            this.jdbc = new JdbcTemplate(dataSource);
+            this.transaction = new TransactionTemplate(transactionManager);
+            this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+            this.readOnlyTransaction.setReadOnly(true);
+        }
+
+        private String read() {
+            return readOnlyTransaction.execute(status -> jdbc.queryForObject("select name from node", String.class));
+        }
+
+        private String readInWriteTransaction() {
+            return transaction.execute(status -> jdbc.queryForObject("select name from node", String.class));
+        }
+
+        private void write() {
+            transaction.executeWithoutResult(status -> jdbc.update("update node set name = name"));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.exception.UsernameOrIdNotFound;
+import com.hendisantika.usermanagement.jdbc.StatementCountingDataSource;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The application on two embedded databases, primary and replica, with no replication between them:
+ * a user written to the primary is only found by reads that were routed there.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "user-management.datasource.replica.enabled=true",
+        "user-management.datasource.replica.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "user-management.datasource.replica.max-lag=1s",
+        "user-management.password-hashing.bcrypt.strength=4"
+})
+class ReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    /**
+     * A row only the replica has, as if the primary had changed it since.
+     */
+    private static final long STALE_ID = 1_000_000L;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Replicas get their schema from the primary, here from the same migrations; the credentials are the
+     * primary's from application.properties, which the replicas inherit.
+     */
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "root", "root")
+                .locations("classpath:db/migration/h2")
+                .load()
+                .migrate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void routingDataSourceIsCountedOnce() {
+        assertTrue(dataSource instanceof StatementCountingDataSource);
+        assertTrue(((StatementCountingDataSource) dataSource).getTargetDataSource() instanceof LazyConnectionDataSourceProxy);
+    }
+
+    @Test
+    void readOnlyTransactionsReadTheReplica_exceptForTheWriter() throws Exception {
+        from("10.0.0.1");
+        User user = userRepository.save(newUser("replicated"));
+
+        assertEquals("replicated", userService.getUserById(user.getId()).getUsername());
+        // Otherwise the second-level cache answers without asking either database
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        from("10.0.0.2");
+        assertThrows(UsernameOrIdNotFound.class, () -> userService.getUserById(user.getId()));
+    }
+
+    @Test
+    void replicaReadsRightAfterAChange_areNotCached() throws Exception {
+        new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "root", "root")).update(
+                "insert into users (id, first_name, last_name, email, username, password) values (?, ?, ?, ?, ?, ?)",
+                STALE_ID, "Sta", "Le", "stale@example.com", "stale", "HASH");
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        from("10.0.0.1");
+        User changed = newUser("changed");
+        changed.setConfirmPassword(changed.getPassword());
+        userService.createUser(changed);
+
+        from("10.0.0.2");
+        cache.evictAllRegions();
+        assertEquals("stale", userService.getUserById(STALE_ID).getUsername());
+        assertFalse(cache.containsEntity(User.class, STALE_ID));
+
+        Thread.sleep(1_200);
+        userService.getUserById(STALE_ID);
+        assertTrue(cache.containsEntity(User.class, STALE_ID));
+    }
+
+    private static void from(String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(address);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static User newUser(String username) {
+        User user = new User();
+        user.setFirstName("Rep");
+        user.setLastName("Lica");
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword("HASH");
+        return user;
+    }
+}
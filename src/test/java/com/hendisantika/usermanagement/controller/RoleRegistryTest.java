@@ -0,0 +1,75 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.repository.RoleRepository;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleRegistryTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @InjectMocks
+    private RoleRegistry roleRegistry;
+
+    private static final Role ADMIN = new Role(2L, "ADMIN", "ROLE ADMIN");
+    private static final Role USER = new Role(3L, "USER", "ROLE USER");
+
+    @Test
+    void init_seedsDefaultRolesWhenTableIsEmpty() {
+        when(roleRepository.count()).thenReturn(0L);
+        when(roleRepository.findAll()).thenReturn(Arrays.asList(ADMIN, USER));
+
+        roleRegistry.init();
+
+        verify(roleRepository, times(3)).save(any(Role.class));
+        assertEquals(2, roleRegistry.getAll().size());
+    }
+
+    @Test
+    void init_doesNotSeedWhenRolesExist() {
+        when(roleRepository.count()).thenReturn(2L);
+        when(roleRepository.findAll()).thenReturn(Arrays.asList(ADMIN, USER));
+
+        roleRegistry.init();
+
+        verify(roleRepository, never()).save(any(Role.class));
+    }
+
+    @Test
+    void lookupsAreServedFromMemory() {
+        when(roleRepository.count()).thenReturn(2L);
+        when(roleRepository.findAll()).thenReturn(Arrays.asList(ADMIN, USER));
+        roleRegistry.init();
+
+        assertEquals(USER, roleRegistry.findByName("USER").orElseThrow());
+        assertEquals(ADMIN, roleRegistry.findById(2L).orElseThrow());
+        assertTrue(roleRegistry.findByName("UNKNOWN").isEmpty());
+
+        verify(roleRepository, times(1)).findAll();
+        verifyNoMoreInteractions(roleRepository);
+    }
+
+    @Test
+    void getAll_isImmutable() {
+        when(roleRepository.count()).thenReturn(2L);
+        when(roleRepository.findAll()).thenReturn(Arrays.asList(ADMIN, USER));
+        roleRegistry.init();
+
+        List<Role> roles = roleRegistry.getAll();
+        assertThrows(UnsupportedOperationException.class, () -> roles.add(new Role()));
+    }
+}
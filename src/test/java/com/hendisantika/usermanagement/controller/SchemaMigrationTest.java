@@ -0,0 +1,93 @@
+package com.hendisantika.usermanagement.controller;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The schema comes from the Flyway migrations and Hibernate only validates it, so every
+ * {@code @DataJpaTest} already checks the H2 scripts against the entities. This one checks what
+ * validation does not cover.
+ */
+@DataJpaTest
+class SchemaMigrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrationsAreApplied() {
+        List<String> versions = jdbcTemplate.queryForList(
+                "select \"version\" from \"flyway_schema_history\" where \"success\" and \"version\" is not null order by \"installed_rank\"",
+                String.class);
+
+        assertEquals(List.of("1", "2", "3"), versions);
+    }
+
+    @Test
+    void lookupIndexesExist() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "select lower(index_name) from information_schema.indexes where table_schema = 'PUBLIC'", String.class);
+
+        assertTrue(indexes.containsAll(List.of("idx_users_email", "idx_users_created_on", "idx_user_roles_user_id")),
+                indexes.toString());
+    }
+
+    @Test
+    void uniqueConstraintsExist() {
+        List<String> constraints = jdbcTemplate.queryForList(
+                "select lower(constraint_name) from information_schema.table_constraints where constraint_type = 'UNIQUE'",
+                String.class);
+
+        assertTrue(constraints.containsAll(List.of("uk_users_username", "uk_role_name")), constraints.toString());
+    }
+
+    /**
+     * A database created by the former {@code ddl-auto=update}, upgraded the way the application does it: baselined
+     * at version 1, so it only receives the later migrations.
+     */
+    @Test
+    void baselinedSchema_receivesTheLaterMigrations() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("ddl-auto-update" + System.nanoTime())
+                .build();
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(database);
+            jdbc.execute("create table role (id bigint generated by default as identity, description varchar(255), "
+                    + "name varchar(255), primary key (id))");
+            jdbc.execute("create table users (id bigint generated by default as identity, created_on timestamp(6), "
+                    + "email varchar(255) not null, first_name varchar(15) not null, last_modified_on timestamp(6), "
+                    + "last_name varchar(15) not null, password varchar(255) not null, username varchar(255) not null, "
+                    + "primary key (id))");
+            jdbc.execute("create table user_roles (user_id bigint not null, role_id bigint not null, "
+                    + "primary key (role_id, user_id), foreign key (role_id) references role, "
+                    + "foreign key (user_id) references users)");
+
+            Flyway.configure()
+                    .dataSource(database)
+                    .locations("classpath:db/migration/h2")
+                    .baselineOnMigrate(true)
+                    .baselineVersion("1")
+                    .load()
+                    .migrate();
+
+            List<String> constraints = jdbc.queryForList(
+                    "select lower(constraint_name) from information_schema.table_constraints "
+                            + "where constraint_type = 'UNIQUE' and table_name = 'USERS'", String.class);
+            assertEquals(List.of("uk_users_username"), constraints);
+            assertEquals(0L, jdbc.queryForObject("select count(*) from users where version <> 0", Long.class));
+        } finally {
+            database.shutdown();
+        }
+    }
+}
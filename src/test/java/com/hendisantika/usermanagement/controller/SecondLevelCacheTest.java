@@ -0,0 +1,151 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.dto.BulkJobStatus;
+import com.hendisantika.usermanagement.dto.BulkUserRequest;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import com.hendisantika.usermanagement.service.UserBulkService;
+import com.hendisantika.usermanagement.service.UserDetailsServiceImpl;
+import com.hendisantika.usermanagement.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The second-level cache on the application's own regions: what a login lookup still sends to the database
+ * once warm, and how writes through {@link UserService} and bulk jobs invalidate it.
+ */
+@SpringBootTest(properties = "user-management.password-hashing.bcrypt.strength=4")
+@AutoConfigureTestDatabase
+class SecondLevelCacheTest {
+
+    private static final String ROLES = User.class.getName() + ".roles";
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserBulkService bulkService;
+
+    private Statistics statistics;
+
+    private Cache cache;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+        cache = sessionFactory.getCache();
+        user = new User();
+        user.setFirstName("Cache");
+        user.setLastName("Hit");
+        user.setEmail("cached@example.com");
+        user.setUsername("cached");
+        user.setPassword("HASH");
+        user.setRoles(new HashSet<>(Set.of(role(RoleRegistry.USER))));
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void loginLookup_onceWarm_runsNoStatement() {
+        userDetailsService.loadUserByUsername("cached");
+        statistics.clear();
+
+        UserDetails details = userDetailsService.loadUserByUsername("cached");
+
+        assertEquals(Set.of("ROLE USER"), authorities(details));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(User.ROLES_CACHE_REGION).getHitCount());
+    }
+
+    @Test
+    void userServiceUpdate_isSeenByTheNextLookup() throws Exception {
+        userDetailsService.loadUserByUsername("cached");
+
+        User changes = new User();
+        changes.setId(user.getId());
+        changes.setUsername("renamed");
+        changes.setRoles(new HashSet<>(Set.of(role("ADMIN"))));
+        userService.updateUser(changes);
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("cached"));
+        assertEquals(Set.of("ROLE ADMIN"), authorities(userDetailsService.loadUserByUsername("renamed")));
+    }
+
+    @Test
+    void bulkJob_evictsTheUsersAndTheirRoles_butNotTheRoles() throws Exception {
+        userDetailsService.loadUserByUsername("cached");
+        Long roleId = role(RoleRegistry.USER).getId();
+        assertTrue(cache.containsEntity(User.class, user.getId()));
+        assertTrue(cache.containsCollection(ROLES, user.getId()));
+
+        BulkJobStatus status = await(bulkService.start(new BulkUserRequest(BulkUserRequest.Action.REVOKE_ROLE,
+                RoleRegistry.USER, List.of(user.getId()), null, null)));
+
+        assertEquals(1, status.getAffected());
+        assertFalse(cache.containsEntity(User.class, user.getId()));
+        assertFalse(cache.containsCollection(ROLES, user.getId()));
+        assertTrue(cache.containsEntity(Role.class, roleId));
+        assertTrue(authorities(userDetailsService.loadUserByUsername("cached")).isEmpty());
+    }
+
+    private Role role(String name) {
+        return roleRegistry.findByName(name).orElseThrow();
+    }
+
+    private BulkJobStatus await(BulkJobStatus started) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            BulkJobStatus status = bulkService.getStatus(started.getId()).orElseThrow();
+            if (status.getState() == BulkJobStatus.State.COMPLETED || status.getState() == BulkJobStatus.State.FAILED) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Bulk job did not finish");
+    }
+
+    private static Set<String> authorities(UserDetails details) {
+        return details.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,56 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.jdbc.SqlStatistics;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Counts the SQL executed on the test thread, including through {@code MockMvc}, during each test body,
+ * and fails tests that go over their {@link MaxSqlStatements} budget. Register it with
+ * {@code @RegisterExtension} to read {@link #getStatistics()} from the test itself.
+ */
+public class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private SqlStatistics statistics;
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        statistics = SqlStatistics.start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        statistics.stop();
+        MaxSqlStatements budget = context.getRequiredTestMethod().getAnnotation(MaxSqlStatements.class);
+        if (budget == null) {
+            return;
+        }
+        if (statistics.getStatements() > budget.value()) {
+            fail("Expected at most " + budget.value() + " SQL statements but got " + statistics + ":\n" + describe());
+        }
+        statistics.getMostRepeated()
+                .filter(repeated -> repeated.getValue() > budget.maxRepeats())
+                .ifPresent(repeated -> fail("Possible N+1: " + repeated.getValue() + " executions of ["
+                        + repeated.getKey() + "], at most " + budget.maxRepeats() + " expected"));
+    }
+
+    /**
+     * Statistics of the running test, or of the last one once it has finished.
+     */
+    public SqlStatistics getStatistics() {
+        return statistics;
+    }
+
+    private String describe() {
+        return statistics.getExecutions().entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .map(entry -> "  " + entry.getValue() + " x " + entry.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.security.AuthenticationTokenService;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import com.hendisantika.usermanagement.service.UserDetailsServiceImpl;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Form login and later requests in the stateless token mode: no HttpSession and no user lookup after login.
+ */
+@SpringBootTest(properties = {
+        "user-management.password-hashing.bcrypt.strength=4",
+        "user-management.security.token.enabled=true",
+        "user-management.security.token.secret=c2lnbmluZy1rZXktZm9yLXRva2VuLWF1dGhlbnRpY2F0aW9uLXRlc3Q="
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class TokenAuthenticationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @SpyBean
+    private UserDetailsServiceImpl userDetailsService;
+
+    @BeforeEach
+    void seed() {
+        if (userRepository.findByUsername("stateless").isEmpty()) {
+            Role role = roleRegistry.findByName(RoleRegistry.USER).orElseThrow();
+            User user = new User();
+            user.setFirstName("State");
+            user.setLastName("Less");
+            user.setEmail("stateless@example.com");
+            user.setUsername("stateless");
+            user.setPassword(passwordEncoder.encode("secret"));
+            user.setRoles(Set.of(role));
+            userRepository.save(user);
+        }
+    }
+
+    @Test
+    void login_issuesTokenCookieWithoutSession() throws Exception {
+        MvcResult result = login();
+
+        Cookie token = result.getResponse().getCookie(AuthenticationTokenService.COOKIE_NAME);
+        assertNotNull(token);
+        assertTrue(token.isHttpOnly());
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    @Test
+    void tokenAuthenticatesWithoutUserLookup() throws Exception {
+        Cookie token = login().getResponse().getCookie(AuthenticationTokenService.COOKIE_NAME);
+        clearInvocations(userDetailsService);
+
+        MvcResult result = mockMvc.perform(get("/userForm").cookie(token))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    @Test
+    void invalidToken_isClearedAndRedirectsToLogin() throws Exception {
+        Cookie forged = new Cookie(AuthenticationTokenService.COOKIE_NAME, "forged.token.value");
+
+        MvcResult result = mockMvc.perform(get("/userForm").cookie(forged).accept(MediaType.TEXT_HTML))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrlPattern("**/login"))
+                .andReturn();
+
+        assertEquals(0, result.getResponse().getCookie(AuthenticationTokenService.COOKIE_NAME).getMaxAge());
+    }
+
+    @Test
+    void logout_clearsTokenCookie() throws Exception {
+        Cookie token = login().getResponse().getCookie(AuthenticationTokenService.COOKIE_NAME);
+
+        MvcResult result = mockMvc.perform(get("/logout").cookie(token).accept(MediaType.TEXT_HTML))
+                .andExpect(redirectedUrl("/login?logout"))
+                .andReturn();
+
+        assertEquals(0, result.getResponse().getCookie(AuthenticationTokenService.COOKIE_NAME).getMaxAge());
+    }
+
+    private MvcResult login() throws Exception {
+        return mockMvc.perform(post("/login").param("username", "stateless").param("password", "secret"))
+                .andExpect(redirectedUrl("/userForm"))
+                .andReturn();
+    }
+}
@@ -0,0 +1,172 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.dto.UserPage;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.exception.UsernameOrIdNotFound;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import com.hendisantika.usermanagement.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserApiControllerTest {
+
+    private static final String ETAG = "\"0123456789abcdef0123456789abcdef\"";
+
+    private MockMvc mockMvc;
+
+    @InjectMocks
+    private UserApiController sut;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private RoleRegistry roleRegistry;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(sut).build();
+
+        Role role = new Role();
+        role.setId(1L);
+        role.setName("USER");
+        role.setDescription("ROLE USER");
+
+        user = new User();
+        user.setId(7L);
+        user.setFirstName("Ada");
+        user.setLastName("Lovelace");
+        user.setEmail("ada@example.com");
+        user.setUsername("ada");
+        user.setPassword("$2a$10$hash");
+        user.setRoles(Set.of(role));
+        user.setLastModifiedOn(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+    }
+
+    @Test
+    void getUser_returnsDtoWithEtag() throws Exception {
+        when(userService.getUserEtag(7L)).thenReturn(ETAG);
+        when(userService.getUserWithRolesById(7L)).thenReturn(user);
+
+        mockMvc.perform(get("/api/users/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.username").value("ada"))
+                .andExpect(jsonPath("$.roles[0]").value("USER"))
+                .andExpect(jsonPath("$.password").doesNotExist());
+    }
+
+    @Test
+    void getUser_matchingEtagSkipsTheLoad() throws Exception {
+        when(userService.getUserEtag(7L)).thenReturn(ETAG);
+
+        mockMvc.perform(get("/api/users/7").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().string(""));
+        verify(userService, never()).getUserWithRolesById(any());
+    }
+
+    @Test
+    void getUser_unknownId() throws Exception {
+        when(userService.getUserEtag(9L)).thenThrow(new UsernameOrIdNotFound("User id does not exist."));
+
+        mockMvc.perform(get("/api/users/9"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void listUsers_returnsPage() throws Exception {
+        UserPage page = new UserPage(List.of(user), null, 7L, 1);
+        when(userService.getUsersPageEtag(null, 1)).thenReturn(ETAG);
+        when(userService.getUsersPageWithRoles(null, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/api/users").param("size", "1").header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(jsonPath("$.content[0].id").value(7))
+                .andExpect(jsonPath("$.content[0].password").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(7));
+    }
+
+    @Test
+    void listUsers_matchingEtagSkipsTheLoad() throws Exception {
+        when(userService.getUsersPageEtag(7L, null)).thenReturn(ETAG);
+
+        mockMvc.perform(get("/api/users").param("after", "7").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified());
+        verify(userService, never()).getUsersPageWithRoles(any(), any());
+    }
+
+    @Test
+    void patchUser_appliesOnlyThePresentFields() throws Exception {
+        user.setVersion(4L);
+        when(userService.updateUser(any(User.class))).thenReturn(user);
+        when(userService.getUserWithRolesById(7L)).thenReturn(user);
+        when(userService.getUserEtag(7L)).thenReturn(ETAG);
+
+        mockMvc.perform(patch("/api/users/7").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":3,\"firstName\":\"Augusta\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(jsonPath("$.version").value(4));
+        verify(userService).updateUser(argThat(changes -> changes.getId() == 7L && changes.getVersion() == 3L
+                && "Augusta".equals(changes.getFirstName()) && changes.getLastName() == null
+                && changes.getRoles() == null));
+    }
+
+    @Test
+    void patchUser_staleVersionIsAConflict() throws Exception {
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(user.getRoles().iterator().next()));
+        when(userService.updateUser(any(User.class)))
+                .thenThrow(new OptimisticLockingFailureException("User 7 was changed by someone else"));
+
+        mockMvc.perform(patch("/api/users/7").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":3,\"roles\":[\"USER\"]}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void patchUser_requiresTheVersion() throws Exception {
+        mockMvc.perform(patch("/api/users/7").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Augusta\"}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void patchUser_unknownRole() throws Exception {
+        when(roleRegistry.findByName("ROOT")).thenReturn(Optional.empty());
+
+        mockMvc.perform(patch("/api/users/7").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\":3,\"roles\":[\"ROOT\"]}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(userService);
+    }
+}
@@ -0,0 +1,169 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.dto.BulkJobStatus;
+import com.hendisantika.usermanagement.dto.BulkUserRequest;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.event.UsersBulkChangedEvent;
+import com.hendisantika.usermanagement.repository.RoleRepository;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import com.hendisantika.usermanagement.service.UserBulkService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs outside the test transaction: each chunk of a job commits on its own, on the bulk thread.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserBulkServiceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<UsersBulkChangedEvent> events = new CopyOnWriteArrayList<>();
+
+    private RoleRegistry roleRegistry;
+
+    private UserBulkService bulkService;
+
+    @BeforeEach
+    void setUp() {
+        roleRegistry = new RoleRegistry(roleRepository);
+        roleRegistry.init();
+        bulkService = new UserBulkService(userRepository, roleRegistry,
+                event -> events.add((UsersBulkChangedEvent) event), transactionManager, Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(bulkService, "chunkSize", 2);
+        Role user = roleRegistry.findByName(RoleRegistry.USER).orElseThrow();
+        for (String username : List.of("acme.ada", "acme.alan", "acme.grace", "acme_x", "acmeXy")) {
+            save(username, user);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkService.shutdown();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void assignRole_byUsernamePrefix_addsTheRoleOnlyWhereMissing() throws Exception {
+        Role admin = roleRegistry.findByName("ADMIN").orElseThrow();
+        User grace = userRepository.findWithRolesByUsername("acme.grace").orElseThrow();
+        grace.getRoles().add(admin);
+        userRepository.save(grace);
+
+        BulkJobStatus status = await(bulkService.start(
+                new BulkUserRequest(BulkUserRequest.Action.ASSIGN_ROLE, "ADMIN", null, "acme.", null)));
+
+        assertEquals(BulkJobStatus.State.COMPLETED, status.getState());
+        assertEquals(3, status.getTotal());
+        assertEquals(3, status.getProcessed());
+        assertEquals(2, status.getAffected());
+        assertEquals(Set.of("ADMIN", "USER"), roleNames("acme.ada"));
+        assertEquals(Set.of("USER"), roleNames("acme_x"));
+        assertEquals(1L, userRepository.findByUsername("acme.ada").orElseThrow().getVersion());
+        assertEquals(1L, userRepository.findByUsername("acme.grace").orElseThrow().getVersion());
+        assertEquals(2, events.size());
+        assertEquals(UsersBulkChangedEvent.Type.ROLES_CHANGED, events.get(0).getType());
+    }
+
+    @Test
+    void usernamePrefix_matchesWildcardsLiterally() throws Exception {
+        BulkJobStatus status = await(bulkService.start(
+                new BulkUserRequest(BulkUserRequest.Action.DELETE, null, null, "acme_", null)));
+
+        assertEquals(1, status.getAffected());
+        assertFalse(userRepository.findByUsername("acme_x").isPresent());
+        assertTrue(userRepository.findByUsername("acmeXy").isPresent());
+    }
+
+    @Test
+    void revokeRole_byIds_skipsUnknownIds() throws Exception {
+        List<Long> ids = List.of(userRepository.findByUsername("acme.ada").orElseThrow().getId(),
+                userRepository.findByUsername("acmeXy").orElseThrow().getId(), 999_999L);
+
+        BulkJobStatus status = await(bulkService.start(
+                new BulkUserRequest(BulkUserRequest.Action.REVOKE_ROLE, "USER", ids, null, null)));
+
+        assertEquals(3, status.getProcessed());
+        assertEquals(2, status.getAffected());
+        assertEquals(Set.of(), roleNames("acme.ada"));
+        assertEquals(Set.of("USER"), roleNames("acme.alan"));
+    }
+
+    @Test
+    void delete_byRole_removesUsersAndTheirRoles() throws Exception {
+        BulkJobStatus status = await(bulkService.start(
+                new BulkUserRequest(BulkUserRequest.Action.DELETE, null, null, null, "USER")));
+
+        assertEquals(5, status.getAffected());
+        assertEquals(0, userRepository.count());
+        assertEquals(5, events.stream().mapToInt(event -> event.getUsernames().size()).sum());
+        assertTrue(events.stream().allMatch(event -> event.getType() == UsersBulkChangedEvent.Type.DELETED));
+    }
+
+    @Test
+    void emptyOrAmbiguousSelection_andUnknownRole_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> bulkService.start(
+                new BulkUserRequest(BulkUserRequest.Action.DELETE, null, null, " ", null)));
+        assertThrows(IllegalArgumentException.class, () -> bulkService.start(
+                new BulkUserRequest(BulkUserRequest.Action.DELETE, null, List.of(1L), "acme.", null)));
+        assertThrows(IllegalArgumentException.class, () -> bulkService.start(
+                new BulkUserRequest(BulkUserRequest.Action.ASSIGN_ROLE, "ROOT", List.of(1L), null, null)));
+        assertEquals(5, userRepository.count());
+    }
+
+    private BulkJobStatus await(BulkJobStatus started) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            BulkJobStatus status = bulkService.getStatus(started.getId()).orElseThrow();
+            if (status.getState() == BulkJobStatus.State.COMPLETED || status.getState() == BulkJobStatus.State.FAILED) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Bulk job did not finish");
+    }
+
+    private Set<String> roleNames(String username) {
+        return userRepository.findWithRolesByUsername(username).orElseThrow().getRoles().stream()
+                .map(Role::getName)
+                .collect(Collectors.toSet());
+    }
+
+    private void save(String username, Role role) {
+        User user = new User();
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword("HASH");
+        user.setRoles(new HashSet<>(Set.of(role)));
+        userRepository.save(user);
+    }
+}
@@ -0,0 +1,111 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets of the main read endpoints against a seeded H2 database: each must stay flat
+ * whatever the number of users on the page.
+ */
+@SpringBootTest(properties = "user-management.password-hashing.bcrypt.strength=4")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+class UserControllerSqlBudgetTest {
+
+    private static final int USERS = 30;
+
+    @RegisterExtension
+    final SqlStatementBudgetExtension sql = new SqlStatementBudgetExtension();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long userId;
+
+    @BeforeEach
+    void seed() {
+        if (userRepository.count() == 0) {
+            seedUsers();
+        }
+        userId = userRepository.findByUsername("budget7").orElseThrow().getId();
+    }
+
+    private void seedUsers() {
+        Role role = roleRegistry.findByName(RoleRegistry.USER).orElseThrow();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setUsername("budget" + i);
+            user.setPassword("HASH");
+            user.setRoles(Set.of(role));
+            userRepository.save(user);
+        }
+    }
+
+    @Test
+    @MaxSqlStatements(value = 1)
+    void userList() throws Exception {
+        mockMvc.perform(get("/userForm").with(user("admin").authorities(() -> "ROLE ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(value = 3, maxRepeats = 1)
+    void apiPageLoadsRolesInOneStatement() throws Exception {
+        mockMvc.perform(get("/api/users").param("size", String.valueOf(USERS)).with(user("reader")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSqlStatements(value = 2)
+    void apiUser() throws Exception {
+        mockMvc.perform(get("/api/users/" + userId).with(user("reader")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void lazyRolesShowAsRepeatedStatement() {
+        // Roles loaded by the other tests would come from the second-level cache
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                userRepository.findAll().forEach(user -> user.getRoles().size()));
+
+        assertEquals(USERS, sql.getStatistics().getMostRepeated().orElseThrow().getValue());
+        assertEquals(USERS + 1, sql.getStatistics().getStatements());
+    }
+}
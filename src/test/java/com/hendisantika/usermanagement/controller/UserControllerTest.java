@@ -3,11 +3,13 @@ package com.hendisantika.usermanagement.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hendisantika.usermanagement.dto.ChangePasswordForm;
+import com.hendisantika.usermanagement.dto.UserPage;
 import com.hendisantika.usermanagement.entity.Role;
 import com.hendisantika.usermanagement.entity.User;
 import com.hendisantika.usermanagement.exception.UsernameOrIdNotFound;
-import com.hendisantika.usermanagement.repository.RoleRepository;
+import com.hendisantika.usermanagement.service.RoleRegistry;
 import com.hendisantika.usermanagement.service.UserService;
+import com.hendisantika.usermanagement.service.UsernameAvailabilityService;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,10 +24,13 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -45,7 +50,13 @@ class UserControllerTest {
     private UserService userService;
 
     @Mock
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
+
+    @Mock
+    private UsernameAvailabilityService usernameAvailabilityService;
+
+    @Mock
+    private UserListFragmentCache userListFragmentCache;
 
     private static User user;
     private static Role role1;
@@ -69,6 +80,28 @@ class UserControllerTest {
     @BeforeEach
     public void setUpBeforeEach() {
         mockMvc = MockMvcBuilders.standaloneSetup(sut).build();
+        lenient().when(userService.getUsersPage(any(), any()))
+                .thenReturn(new UserPage(Collections.emptyList(), null, null, 50));
+    }
+
+    @Test
+    void usernameAvailable_answersFromAvailabilityService() throws Exception {
+        when(usernameAvailabilityService.isAvailable("ppascual")).thenReturn(false);
+
+        mockMvc.perform(get("/signup/username-available").param("username", "ppascual"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$.username").value("ppascual"))
+                .andExpect(jsonPath("$.available").value(false));
+    }
+
+    @Test
+    void usernameAvailable_blankIsNotAvailable() throws Exception {
+        mockMvc.perform(get("/signup/username-available").param("username", " "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.available").value(false));
+
+        verifyNoInteractions(usernameAvailabilityService);
     }
 
     @Test
@@ -84,7 +117,7 @@ class UserControllerTest {
 
     @Test
     void testGetEditUserFormFound() throws Exception {
-        when(userService.getUserById(anyLong())).thenReturn(user);
+        when(userService.getUserWithRolesById(anyLong())).thenReturn(user);
 
         mockMvc.perform(get("/editUser/{id}", 1L))
                 .andDo(print())
@@ -94,7 +127,7 @@ class UserControllerTest {
 
     @Test
     void testGetEditUserFormNotFound() throws Exception {
-        when(userService.getUserById(anyLong()))
+        when(userService.getUserWithRolesById(anyLong()))
                 .thenThrow(new UsernameOrIdNotFound("User not found"));
 
         mockMvc.perform(get("/editUser/{id}", 99L))
@@ -116,7 +149,7 @@ class UserControllerTest {
 
     @Test
     void testSignUpPage() throws Exception {
-        when(roleRepository.findAll()).thenReturn(Collections.singletonList(role1));
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(role1));
 
         mockMvc.perform(get("/signup"))
                 .andDo(print())
@@ -127,7 +160,7 @@ class UserControllerTest {
 
     @Test
     void testSignUpAction() throws Exception {
-        when(roleRepository.findByName(anyString())).thenReturn(role1);
+        when(roleRegistry.findByName(anyString())).thenReturn(Optional.of(role1));
         when(userService.createUser(any(User.class))).thenReturn(user);
 
         mockMvc.perform(post("/signup")
@@ -217,7 +250,7 @@ class UserControllerTest {
     @Test
     void testSignUpActionWithValidationException() throws Exception {
         // Simule que la méthode createUser lance une exception de validation
-        when(roleRepository.findByName(anyString())).thenReturn(role1);
+        when(roleRegistry.findByName(anyString())).thenReturn(Optional.of(role1));
         when(userService.createUser(any(User.class)))
                 .thenThrow(new com.hendisantika.usermanagement.exception.CustomFieldValidationException(
                         "Username not available", "username"
@@ -264,8 +297,9 @@ class UserControllerTest {
     }
     @Test
     void testUserFormPageWithUsers() throws Exception {
-        when(userService.getAllUsers()).thenReturn(Collections.singletonList(user));
-        when(roleRepository.findAll()).thenReturn(Collections.singletonList(role1));
+        when(userService.getUsersPage(isNull(), isNull()))
+                .thenReturn(new UserPage(Collections.singletonList(user), null, null, 50));
+        when(roleRegistry.getAll()).thenReturn(Collections.singletonList(role1));
 
         mockMvc.perform(get("/userForm"))
                 .andDo(print())
@@ -277,7 +311,7 @@ class UserControllerTest {
     }
     @Test
     void testSignUpActionWithGenericException() throws Exception {
-        when(roleRepository.findByName(anyString())).thenReturn(role1);
+        when(roleRegistry.findByName(anyString())).thenReturn(Optional.of(role1));
         when(userService.createUser(any(User.class))).thenThrow(new RuntimeException("Database error"));
 
         mockMvc.perform(post("/signup")
@@ -289,9 +323,21 @@ class UserControllerTest {
                 .andExpect(model().attributeExists("roles"))
                 .andExpect(model().attribute("signup", true));
     }
+    @Test
+    void testSignUpActionWhenHashingSaturated() throws Exception {
+        when(roleRegistry.findByName(anyString())).thenReturn(Optional.of(role1));
+        when(userService.createUser(any(User.class)))
+                .thenThrow(new com.hendisantika.usermanagement.exception.PasswordHashingUnavailableException("busy"));
+
+        mockMvc.perform(post("/signup")
+                        .flashAttr("userForm", user))
+                .andDo(print())
+                .andExpect(status().isServiceUnavailable());
+    }
+
     @Test
     void testGetEditUserFormInternalServerError() throws Exception {
-        when(userService.getUserById(anyLong()))
+        when(userService.getUserWithRolesById(anyLong()))
                 .thenThrow(new RuntimeException("Unexpected error"));
 
         mockMvc.perform(get("/editUser/{id}", 1L))
@@ -299,6 +345,18 @@ class UserControllerTest {
                 .andExpect(status().isInternalServerError());
     }
 
+    @Test
+    void testUserFormPageWithCursor() throws Exception {
+        UserPage page = new UserPage(Collections.singletonList(user), 10L, 1L, 1);
+        when(userService.getUsersPage(eq(10L), isNull())).thenReturn(page);
+
+        mockMvc.perform(get("/userForm").param("after", "10"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("userPage", page))
+                .andExpect(model().attribute("userList", Collections.singletonList(user)));
+    }
+
     @Test
     void testCreateUserWithValidationErrors() throws Exception {
         User invalidUser = new User(); // aucun champ rempli
@@ -326,29 +384,61 @@ class UserControllerTest {
     }
 
     @Test
-    void testSignUpPageWhenRolesEmpty() throws Exception {
-        when(roleRepository.findAll()).thenReturn(Collections.emptyList());
-        when(roleRepository.findByName("USER")).thenReturn(role1);
-
+    void testSignUpPageWhenUserRoleMissing() throws Exception {
         mockMvc.perform(get("/signup"))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(model().attributeExists("roles"))
+                .andExpect(model().attribute("roles", Collections.emptyList()))
                 .andExpect(model().attributeExists("userForm"))
                 .andExpect(model().attribute("signup", true));
-
-        verify(roleRepository, atLeastOnce()).save(any(Role.class));
     }
 
+    @Test
+    void testSearchUserForm() throws Exception {
+        when(userService.searchUsers("pio", null)).thenReturn(List.of(user));
 
+        mockMvc.perform(get("/userForm").param("q", "pio"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("user-form/user-view"))
+                .andExpect(model().attribute("query", "pio"))
+                .andExpect(model().attribute("userList", List.of(user)));
+        verify(userService, never()).getUsersPage(any(), any());
+    }
 
+    @Test
+    void testBlankSearchUserForm_showsThePaginatedList() throws Exception {
+        UserPage page = new UserPage(Collections.singletonList(user), 10L, 1L, 1);
+        when(userService.getUsersPage(eq(10L), isNull())).thenReturn(page);
 
+        mockMvc.perform(get("/userForm").param("q", " ").param("after", "10"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("user-form/user-view"))
+                .andExpect(model().attribute("userPage", page))
+                .andExpect(model().attributeDoesNotExist("query"));
+        verify(userService, never()).searchUsers(any(), any());
+    }
 
+    @Test
+    void testSearchSuggestions() throws Exception {
+        when(userService.searchUsers("pio", 5)).thenReturn(List.of(user));
 
+        mockMvc.perform(get("/userForm/search").param("q", "pio").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].username").value("ppascual"))
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+    }
 
+    @Test
+    void testUserFormPageFromFragmentCache() throws Exception {
+        when(userListFragmentCache.get(isNull(), any())).thenReturn("<table id=\"userList\"></table>");
 
-
+        mockMvc.perform(get("/userForm"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("user-form/user-view"))
+                .andExpect(model().attribute("userTable", "<table id=\"userList\"></table>"))
+                .andExpect(model().attributeDoesNotExist("userList"));
+        verify(userService, never()).getUsersPage(any(), any());
+    }
 }
-
-
-
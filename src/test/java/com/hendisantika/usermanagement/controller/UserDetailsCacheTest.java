@@ -0,0 +1,78 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
+import com.hendisantika.usermanagement.service.UserDetailsCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDetailsCacheTest {
+
+    private UserDetailsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserDetailsCache(100, Duration.ofMinutes(1));
+    }
+
+    private static UserDetails details(String username) {
+        return org.springframework.security.core.userdetails.User.withUsername(username)
+                .password("HASH")
+                .authorities("ROLE USER")
+                .build();
+    }
+
+    @Test
+    void getUserFromCache_countsHitsAndMisses() {
+        assertNull(cache.getUserFromCache("imane"));
+
+        cache.putUserInCache(details("imane"));
+        UserDetails cached = cache.getUserFromCache("imane");
+
+        assertNotNull(cached);
+        assertEquals("HASH", cached.getPassword());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void erasingCredentialsOfReturnedCopy_keepsCachedPassword() {
+        UserDetails original = details("imane");
+        cache.putUserInCache(original);
+
+        ((CredentialsContainer) original).eraseCredentials();
+        ((CredentialsContainer) cache.getUserFromCache("imane")).eraseCredentials();
+
+        assertEquals("HASH", cache.getUserFromCache("imane").getPassword());
+    }
+
+    @Test
+    void onUserChanged_evictsPreviousAndCurrentUsername() {
+        cache.putUserInCache(details("old"));
+        cache.putUserInCache(details("new"));
+
+        User user = new User();
+        user.setUsername("new");
+        cache.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, user, "old"));
+
+        assertNull(cache.getUserFromCache("old"));
+        assertNull(cache.getUserFromCache("new"));
+    }
+
+    @Test
+    void onUserCreated_keepsEntries() {
+        cache.putUserInCache(details("imane"));
+
+        User user = new User();
+        user.setUsername("other");
+        cache.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, user));
+
+        assertNotNull(cache.getUserFromCache("imane"));
+    }
+}
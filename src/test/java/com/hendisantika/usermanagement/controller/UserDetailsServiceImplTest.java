@@ -1,6 +1,7 @@
 package com.hendisantika.usermanagement.controller;
 import com.hendisantika.usermanagement.entity.Role;
 import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
 import com.hendisantika.usermanagement.exception.CustomFieldValidationException;
 import com.hendisantika.usermanagement.repository.UserRepository;
 import com.hendisantika.usermanagement.service.UserDetailsServiceImpl;
@@ -10,8 +11,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Collections;
 import java.util.Optional;
@@ -25,6 +29,9 @@ class UserDetailsServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserDetailsServiceImpl userDetailsService;
     @InjectMocks
@@ -41,7 +48,7 @@ class UserDetailsServiceImplTest {
         role.setDescription("ROLE_ADMIN");
         user.setRoles(Collections.singleton(role));
 
-        when(userRepository.findByUsername("imane")).thenReturn(Optional.of(user));
+        when(userRepository.loadByUsername("imane")).thenReturn(Optional.of(user));
 
         // WHEN
         UserDetails userDetails = userDetailsService.loadUserByUsername("imane");
@@ -53,20 +60,20 @@ class UserDetailsServiceImplTest {
         assertTrue(userDetails.getAuthorities().stream()
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
 
-        verify(userRepository).findByUsername("imane");
+        verify(userRepository).loadByUsername("imane");
     }
 
     @Test
     void loadUserByUsername_notFound() {
         // GIVEN
-        when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
+        when(userRepository.loadByUsername("unknown")).thenReturn(Optional.empty());
 
         // THEN
         assertThrows(UsernameNotFoundException.class, () ->
                 userDetailsService.loadUserByUsername("unknown")
         );
 
-        verify(userRepository).findByUsername("unknown");
+        verify(userRepository).loadByUsername("unknown");
     }
     @Test
     void createUser_existingUsername_throwsException() throws Exception {
@@ -77,11 +84,61 @@ class UserDetailsServiceImplTest {
         user.setConfirmPassword("pass");
 
         // Simule un utilisateur déjà existant
-        when(userRepository.findByUsername("existingUser")).thenReturn(Optional.of(user));
+        when(userRepository.existsByUsername("existingUser")).thenReturn(true);
 
         // WHEN & THEN
         assertThrows(CustomFieldValidationException.class, () -> {
             userService.createUser(user);
         });
     }
+
+    @Test
+    void updatePassword_storesUpgradedHashAndEvictsCachedLogin() {
+        // GIVEN
+        User user = new User();
+        user.setUsername("imane");
+        user.setPassword("$2a$10$legacy");
+
+        UserDetails details = org.springframework.security.core.userdetails.User.withUsername("imane")
+                .password("$2a$10$legacy")
+                .authorities("ROLE USER")
+                .build();
+
+        when(userRepository.loadByUsername("imane")).thenReturn(Optional.of(user));
+
+        // WHEN
+        UserDetails upgraded = userDetailsService.updatePassword(details, "{bcrypt}$2a$12$upgraded");
+
+        // THEN
+        assertEquals("{bcrypt}$2a$12$upgraded", user.getPassword());
+        assertEquals("{bcrypt}$2a$12$upgraded", upgraded.getPassword());
+        assertEquals(details.getAuthorities(), upgraded.getAuthorities());
+        verify(eventPublisher).publishEvent(argThat((UserChangedEvent e) ->
+                e.getType() == UserChangedEvent.Type.PASSWORD_CHANGED && "imane".equals(e.getPreviousUsername())));
+    }
+
+    @Test
+    void updatePassword_inATransaction_evictsOnlyAfterCommit() {
+        // GIVEN
+        User user = new User();
+        user.setUsername("imane");
+        UserDetails details = org.springframework.security.core.userdetails.User.withUsername("imane")
+                .password("$2a$10$legacy")
+                .authorities("ROLE USER")
+                .build();
+        when(userRepository.loadByUsername("imane")).thenReturn(Optional.of(user));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // WHEN
+            userDetailsService.updatePassword(details, "{bcrypt}$2a$12$upgraded");
+
+            // THEN
+            verifyNoInteractions(eventPublisher);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(eventPublisher).publishEvent(any(UserChangedEvent.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
 }
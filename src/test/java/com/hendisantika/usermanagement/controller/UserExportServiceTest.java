@@ -0,0 +1,116 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hendisantika.usermanagement.dto.UserFileFormat;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.repository.RoleRepository;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import com.hendisantika.usermanagement.service.UserExportService;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class UserExportServiceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private UserExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        Role admin = entityManager.persist(new Role(null, "ADMIN", "ROLE ADMIN"));
+        Role user = entityManager.persist(new Role(null, "USER", "ROLE USER"));
+        persistUser("ada", "Ada", Set.of(admin, user));
+        persistUser("grace", "Grace, Jr", Set.of(user));
+        entityManager.flush();
+        entityManager.clear();
+
+        RoleRegistry roleRegistry = new RoleRegistry(roleRepository);
+        roleRegistry.refresh();
+        exportService = new UserExportService(userRepository, roleRegistry, new ObjectMapper(),
+                entityManager.getEntityManager());
+    }
+
+    @Test
+    void exportCsv_writesSelectedColumnsInIdOrder() throws IOException {
+        String csv = export(UserFileFormat.CSV, List.of("username", "firstName", "roles"));
+
+        assertEquals("username,firstName,roles\n"
+                + "ada,Ada,ADMIN|USER\n"
+                + "grace,\"Grace, Jr\",USER\n", csv);
+    }
+
+    @Test
+    void exportCsv_escapesFieldsThatStartLikeFormulas() throws IOException {
+        Role user = roleRepository.findByName("USER");
+        persistUser("eve", "=SUM(A1)", Set.of(user));
+        persistUser("mallory", "'@once", Set.of(user));
+        entityManager.flush();
+
+        String csv = export(UserFileFormat.CSV, List.of("username", "firstName"));
+
+        assertTrue(csv.endsWith("eve,\"'=SUM(A1)\"\n"
+                + "mallory,\"''@once\"\n"), csv);
+    }
+
+    @Test
+    void exportNdjson_writesOneObjectPerLine() throws IOException {
+        String ndjson = export(UserFileFormat.NDJSON, List.of("username", "roles"));
+
+        assertEquals("{\"username\":\"ada\",\"roles\":[\"ADMIN\",\"USER\"]}\n"
+                + "{\"username\":\"grace\",\"roles\":[\"USER\"]}\n", ndjson);
+    }
+
+    @Test
+    void export_neverWritesPasswordsAndLeavesNothingManaged() throws IOException {
+        String csv = export(UserFileFormat.CSV, UserExportService.resolveColumns(null));
+
+        assertTrue(csv.startsWith("id,username,firstName,lastName,email,roles,createdOn,lastModifiedOn\n"));
+        assertFalse(csv.contains("HASH"));
+        assertEquals(0, entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    void resolveColumns_rejectsUnknownColumns() {
+        assertThrows(IllegalArgumentException.class, () -> UserExportService.resolveColumns(List.of("password")));
+        assertEquals(List.of("email", "username"), UserExportService.resolveColumns(List.of("email", " username", "email")));
+    }
+
+    private String export(UserFileFormat format, List<String> columns) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.export(output, format, columns);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private void persistUser(String username, String firstName, Set<Role> roles) {
+        User user = new User();
+        user.setFirstName(firstName);
+        user.setLastName("Last");
+        user.setEmail(username + "@example.com");
+        user.setUsername(username);
+        user.setPassword("HASH");
+        user.setRoles(roles);
+        entityManager.persist(user);
+    }
+}
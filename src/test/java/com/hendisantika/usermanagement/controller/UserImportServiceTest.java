@@ -0,0 +1,161 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hendisantika.usermanagement.dto.ImportResult;
+import com.hendisantika.usermanagement.dto.UserFileFormat;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
+import com.hendisantika.usermanagement.repository.RoleRepository;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.security.BoundedPasswordEncoder;
+import com.hendisantika.usermanagement.security.PasswordHashingExecutor;
+import com.hendisantika.usermanagement.service.RoleRegistry;
+import com.hendisantika.usermanagement.service.UserImportService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs outside the test transaction: each import chunk commits through its own stateless session.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportServiceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private PasswordHashingExecutor executor;
+
+    private final List<UserChangedEvent> events = new ArrayList<>();
+
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        RoleRegistry roleRegistry = new RoleRegistry(roleRepository);
+        roleRegistry.init();
+        executor = new PasswordHashingExecutor(2, 4, Duration.ofSeconds(5));
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), executor);
+        importService = new UserImportService(userRepository, roleRegistry, encoder,
+                Validation.buildDefaultValidatorFactory().getValidator(), entityManagerFactory,
+                new ObjectMapper(), event -> events.add((UserChangedEvent) event));
+        ReflectionTestUtils.setField(importService, "batchSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void importCsv_insertsValidRowsWithRolesAndHashedPasswords() throws IOException {
+        String csv = "firstName,lastName,email,username,password,roles\n"
+                + "Ada,Lovelace,ada@example.com,ada,secret,ADMIN|USER\n"
+                + "Alan,Turing,alan@example.com,alan,secret,\n"
+                + "\"Grace, Jr\",Hopper,grace@example.com,grace,secret,USER\n";
+
+        ImportResult result = importService.importUsers(stream(csv), UserFileFormat.CSV);
+
+        assertEquals(3, result.getProcessed());
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getFailed());
+
+        User ada = userRepository.findWithRolesByUsername("ada").orElseThrow();
+        assertEquals(List.of("ADMIN", "USER"),
+                ada.getRoles().stream().map(Role::getName).sorted().collect(Collectors.toList()));
+        assertTrue(new BCryptPasswordEncoder().matches("secret", ada.getPassword()));
+        assertNotNull(ada.getCreatedOn());
+
+        User alan = userRepository.findWithRolesByUsername("alan").orElseThrow();
+        assertEquals(List.of("USER"), alan.getRoles().stream().map(Role::getName).collect(Collectors.toList()));
+        assertEquals("Grace, Jr", userRepository.findByUsername("grace").orElseThrow().getFirstName());
+        assertEquals(3, events.size());
+    }
+
+    @Test
+    void importCsv_stripsTheExportsFormulaEscape() throws IOException {
+        String csv = "firstName,lastName,email,username,password,roles\n"
+                + "\"'=SUM(A1)\",\"''@Hopper\",eve@example.com,eve,secret,\n"
+                + "'-Ada,\"'Lovelace\",ada@example.com,ada,secret,\n";
+
+        ImportResult result = importService.importUsers(stream(csv), UserFileFormat.CSV);
+
+        assertEquals(2, result.getImported());
+        User eve = userRepository.findByUsername("eve").orElseThrow();
+        assertEquals("=SUM(A1)", eve.getFirstName());
+        assertEquals("'@Hopper", eve.getLastName());
+        User ada = userRepository.findByUsername("ada").orElseThrow();
+        assertEquals("'-Ada", ada.getFirstName());
+        assertEquals("'Lovelace", ada.getLastName());
+    }
+
+    @Test
+    void importNdjson_reportsInvalidRowsAndKeepsTheRest() throws IOException {
+        User existing = new User();
+        existing.setFirstName("Old");
+        existing.setLastName("User");
+        existing.setEmail("old@example.com");
+        existing.setUsername("taken");
+        existing.setPassword("HASH");
+        userRepository.save(existing);
+
+        String ndjson = "{\"firstName\":\"Ada\",\"lastName\":\"Lovelace\",\"email\":\"ada@example.com\",\"username\":\"ada\",\"password\":\"secret\",\"roles\":[\"ADMIN\"]}\n"
+                + "{\"firstName\":\"A\",\"lastName\":\"Lovelace\",\"email\":\"x@example.com\",\"username\":\"short\",\"password\":\"secret\"}\n"
+                + "not json\n"
+                + "\n"
+                + "{\"firstName\":\"Taken\",\"lastName\":\"User\",\"email\":\"t@example.com\",\"username\":\"taken\",\"password\":\"secret\"}\n"
+                + "{\"firstName\":\"Bad\",\"lastName\":\"Role\",\"email\":\"b@example.com\",\"username\":\"badrole\",\"password\":\"secret\",\"roles\":[\"ROOT\"]}\n"
+                + "{\"firstName\":\"Ada\",\"lastName\":\"Again\",\"email\":\"ada2@example.com\",\"username\":\"ada\",\"password\":\"secret\"}\n"
+                + "{\"firstName\":\"Alan\",\"lastName\":\"Turing\",\"email\":\"alan@example.com\",\"username\":\"alan\",\"password\":\"secret\"}\n";
+
+        ImportResult result = importService.importUsers(stream(ndjson), UserFileFormat.NDJSON);
+
+        assertEquals(7, result.getProcessed());
+        assertEquals(2, result.getImported());
+        assertEquals(5, result.getFailed());
+        assertEquals(List.of(2L, 3L, 5L, 6L, 7L),
+                result.getErrors().stream().map(ImportResult.RowError::getLine).sorted().collect(Collectors.toList()));
+        assertTrue(userRepository.findByUsername("ada").isPresent());
+        assertTrue(userRepository.findByUsername("alan").isPresent());
+        assertFalse(userRepository.findByUsername("short").isPresent());
+        assertEquals(3, userRepository.count());
+    }
+
+    @Test
+    void importCsv_withoutHeader_isRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.importUsers(stream(""), UserFileFormat.CSV));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
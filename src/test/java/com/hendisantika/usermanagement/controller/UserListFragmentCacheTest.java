@@ -0,0 +1,163 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.dto.UserPage;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.service.UserDataVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserListFragmentCacheTest {
+
+    @Mock
+    private SpringTemplateEngine templateEngine;
+
+    @Mock
+    private ApplicationContext applicationContext;
+
+    private final UserDataVersion version = new UserDataVersion(false, Duration.ofSeconds(2));
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Supplier<UserPage> loader = () -> {
+        loads.incrementAndGet();
+        return new UserPage(Collections.emptyList(), null, null, 50);
+    };
+
+    private UserListFragmentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserListFragmentCache(templateEngine, applicationContext, version, 100, Duration.ofMinutes(1));
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest(), new MockHttpServletResponse()));
+        lenient().when(templateEngine.process(eq(UserListFragmentCache.TEMPLATE), any(IContext.class)))
+                .thenAnswer(invocation -> "<table>" + loads.get() + "</table>");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void get_repeatedViewSkipsQueryAndRendering() {
+        viewAs("alice", "ROLE_ADMIN");
+
+        assertEquals("<table>1</table>", cache.get(null, loader));
+        assertEquals("<table>1</table>", cache.get(null, loader));
+
+        assertEquals(1, loads.get());
+        verify(templateEngine, times(1)).process(eq(UserListFragmentCache.TEMPLATE), any(IContext.class));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void get_writeInvalidates() {
+        viewAs("alice", "ROLE_ADMIN");
+        cache.get(null, loader);
+
+        version.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, new User()));
+
+        assertEquals("<table>2</table>", cache.get(null, loader));
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    void get_withReplicas_skipsTheCacheWithinMaxLagOfAWrite() {
+        UserDataVersion replicated = new UserDataVersion(true, Duration.ofMinutes(1));
+        cache = new UserListFragmentCache(templateEngine, applicationContext, replicated, 100, Duration.ofMinutes(1));
+        viewAs("alice", "ROLE_ADMIN");
+        cache.get(null, loader);
+        cache.get(null, loader);
+        assertEquals(1, loads.get());
+
+        replicated.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, new User()));
+        cache.get(null, loader);
+        cache.get(null, loader);
+
+        assertEquals(3, loads.get());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void get_keyedByPageAndTheTemplatesFlags() {
+        viewAs("alice", "ROLE_ADMIN");
+        cache.get(null, loader);
+        cache.get(50L, loader);
+        viewAs("bob", "ROLE_ADMIN");
+        cache.get(null, loader);
+        assertEquals(2, loads.get());
+
+        viewAs("carol", "ROLE_USER");
+        cache.get(null, loader);
+        viewAs("dave", "ROLE_USER");
+        cache.get(null, loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_viewersWhoCannotEdit_shareOneEntry() {
+        viewAs("erin", "ROLE_GUEST");
+        cache.get(null, loader);
+        viewAs("frank", "ROLE_GUEST");
+        cache.get(null, loader);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_expiresAfterTheTtl() {
+        cache = new UserListFragmentCache(templateEngine, applicationContext, version, 100, Duration.ofNanos(1));
+        viewAs("alice", "ROLE_ADMIN");
+
+        cache.get(null, loader);
+        cache.get(null, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_outsideOfAWebRequest() {
+        RequestContextHolder.resetRequestAttributes();
+        viewAs("alice", "ROLE_ADMIN");
+
+        assertNull(cache.get(null, loader));
+        assertEquals(0, loads.get());
+    }
+
+    private static void viewAs(String username, String authority) {
+        UserDetails user = org.springframework.security.core.userdetails.User.withUsername(username)
+                .password("secret")
+                .authorities(authority)
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
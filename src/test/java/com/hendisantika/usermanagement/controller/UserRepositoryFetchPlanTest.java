@@ -0,0 +1,107 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.dto.UserVersion;
+import com.hendisantika.usermanagement.entity.Role;
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserRepositoryFetchPlanTest {
+
+    private static final int USERS = 5;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Role admin = entityManager.persist(new Role(null, "ADMIN", "ROLE ADMIN"));
+        Role user = entityManager.persist(new Role(null, "USER", "ROLE USER"));
+        for (int i = 0; i < USERS; i++) {
+            User u = new User();
+            u.setFirstName("First" + i);
+            u.setLastName("Last" + i);
+            u.setEmail("user" + i + "@example.com");
+            u.setUsername("user" + i);
+            u.setPassword("HASH");
+            u.setRoles(Set.of(admin, user));
+            entityManager.persist(u);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findWithRolesByUsername_loadsUserAndRolesInOneStatement() {
+        User user = userRepository.findWithRolesByUsername("user3").orElseThrow();
+
+        assertTrue(Hibernate.isInitialized(user.getRoles()));
+        assertEquals(2, user.getRoles().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findWithRolesByIdIn_loadsPageWithRolesInOneStatement() {
+        List<Long> ids = userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(USERS)).stream()
+                .map(User::getId)
+                .collect(Collectors.toList());
+        entityManager.clear();
+        statistics.clear();
+
+        List<User> users = userRepository.findWithRolesByIdIn(ids, Sort.by("id"));
+        users.forEach(u -> assertEquals(2, u.getRoles().size()));
+
+        assertEquals(USERS, users.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findVersions_readOnlyTheVersionColumns() {
+        List<UserVersion> versions = userRepository.findVersionsByIdGreaterThanOrderByIdAsc(0L, Limit.of(USERS));
+
+        assertEquals(USERS, versions.size());
+        versions.forEach(version -> assertNotNull(version.getLastModifiedOn()));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(versions.get(2).getLastModifiedOn(),
+                userRepository.findVersionById(versions.get(2).getId()).orElseThrow().getLastModifiedOn());
+    }
+
+    @Test
+    void lazyRoles_costOneStatementPerUser() {
+        List<User> users = new ArrayList<>();
+        userRepository.findAll().forEach(users::add);
+        users.forEach(u -> u.getRoles().size());
+
+        // Baseline the fetch plans above are guarding against: 1 + N
+        assertEquals(1 + USERS, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,108 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.service.UserSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.streamAllSearchFields()).thenReturn(Stream.of(
+                new Object[]{1L, "Ada", "Lovelace", "ada", "ada.lovelace@example.com"},
+                new Object[]{2L, "Alan", "Turing", "aturing", "alan@example.com"},
+                new Object[]{3L, "Grace", "Hopper", "ghopper", "grace.hopper@navy.mil"},
+                new Object[]{4L, "Adam", "Smith", "asmith", "adam@example.com"}));
+        index = new UserSearchIndex(userRepository, transactionManager);
+        index.init();
+    }
+
+    @Test
+    void search_matchesAnyFieldByPrefix() {
+        assertEquals(List.of(1L, 4L), index.search("ad", 10));
+        assertEquals(List.of(3L), index.search("HOP", 10));
+        assertEquals(List.of(2L), index.search("aturing", 10));
+    }
+
+    @Test
+    void search_requiresEveryToken() {
+        assertEquals(List.of(1L), index.search("ada love", 10));
+        assertEquals(List.of(1L), index.search("love a", 10));
+        assertTrue(index.search("ada turing", 10).isEmpty());
+    }
+
+    @Test
+    void search_ignoresEmailDomains() {
+        assertEquals(List.of(3L), index.search("grace.hopper@example", 10));
+        assertTrue(index.search("example", 10).isEmpty());
+    }
+
+    @Test
+    void search_stopsAtTheLimit() {
+        assertEquals(List.of(1L), index.search("a", 1));
+        assertEquals(3, index.search("a", 3).size());
+        assertTrue(index.search("   ", 10).isEmpty());
+    }
+
+    @Test
+    void onUserChanged_keepsTheIndexInStep() {
+        User ada = user(1L, "Ada", "King", "countess", "ada@example.com");
+        index.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, ada, "ada"));
+
+        assertTrue(index.search("lovelace", 10).isEmpty());
+        assertEquals(List.of(1L), index.search("count", 10));
+        assertEquals(List.of(1L, 4L), index.search("ad", 10));
+
+        User linus = user(5L, "Linus", "Torvalds", "linus", "torvalds@example.com");
+        index.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, linus, null));
+        assertEquals(List.of(5L), index.search("tor", 10));
+
+        index.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.DELETED, linus, null));
+        assertTrue(index.search("tor", 10).isEmpty());
+        assertEquals(4, index.getUserCount());
+    }
+
+    @Test
+    void estimatedSize_followsTheContent() {
+        long before = index.getEstimatedSizeInBytes();
+        long postings = index.getPostingCount();
+
+        index.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED,
+                user(5L, "Linus", "Torvalds", "linus", "torvalds@example.com"), null));
+
+        assertEquals(postings + 2, index.getPostingCount());
+        assertTrue(index.getEstimatedSizeInBytes() > before);
+    }
+
+    private static User user(Long id, String firstName, String lastName, String username, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setUsername(username);
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -1,25 +1,44 @@
 package com.hendisantika.usermanagement.controller;
 
 import com.hendisantika.usermanagement.dto.ChangePasswordForm;
+import com.hendisantika.usermanagement.dto.UserPage;
+import com.hendisantika.usermanagement.dto.UserVersion;
+import com.hendisantika.usermanagement.entity.Role;
 import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
 import com.hendisantika.usermanagement.exception.CustomFieldValidationException;
 import com.hendisantika.usermanagement.exception.UsernameOrIdNotFound;
 import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.security.UserPrincipal;
+import com.hendisantika.usermanagement.service.UserSearchIndex;
 import com.hendisantika.usermanagement.service.UserService;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,9 +52,100 @@ class UserServiceTest {
     @Mock
     private BCryptPasswordEncoder passwordEncoder;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private UserSearchIndex searchIndex;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private UserService userService;
 
+    // ---------------- ETags ----------------
+
+    @Test
+    void getUsersPageEtag_followsTheVersionsOnThePage() {
+        LocalDateTime modified = LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_000);
+        when(userRepository.findVersionsByIdGreaterThanOrderByIdAsc(0L, Limit.of(3)))
+                .thenReturn(List.of(version(1L, modified), version(2L, modified), version(3L, null)))
+                .thenReturn(List.of(version(1L, modified), version(2L, modified)))
+                .thenReturn(List.of(version(1L, modified), version(2L, modified.plusNanos(1_000)), version(3L, null)))
+                .thenReturn(List.of(version(1L, modified), version(2L, modified), version(4L, modified)));
+
+        String etag = userService.getUsersPageEtag(null, 2);
+
+        assertTrue(etag.matches("\"[0-9a-f]{32}\""));
+        // last page now
+        assertNotEquals(etag, userService.getUsersPageEtag(null, 2));
+        // second user modified
+        assertNotEquals(etag, userService.getUsersPageEtag(null, 2));
+        // only the look-ahead row differs
+        assertEquals(etag, userService.getUsersPageEtag(null, 2));
+    }
+
+    @Test
+    void getUserEtag_followsLastModifiedOn() throws Exception {
+        LocalDateTime modified = LocalDateTime.of(2024, 5, 6, 7, 8, 9);
+        when(userRepository.findVersionById(4L))
+                .thenReturn(Optional.of(version(4L, modified)))
+                .thenReturn(Optional.of(version(4L, modified)))
+                .thenReturn(Optional.of(version(4L, modified.plusSeconds(1))));
+
+        String etag = userService.getUserEtag(4L);
+
+        assertEquals(etag, userService.getUserEtag(4L));
+        assertNotEquals(etag, userService.getUserEtag(4L));
+    }
+
+    @Test
+    void getUserEtag_notFound() {
+        when(userRepository.findVersionById(4L)).thenReturn(Optional.empty());
+
+        assertThrows(UsernameOrIdNotFound.class, () -> userService.getUserEtag(4L));
+    }
+
+    private static UserVersion version(Long id, LocalDateTime lastModifiedOn) {
+        return new UserVersion() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getLastModifiedOn() {
+                return lastModifiedOn;
+            }
+        };
+    }
+
+    // ---------------- searchUsers ----------------
+
+    @Test
+    void searchUsers_loadsMatchesInIndexOrder() {
+        User first = new User();
+        first.setId(7L);
+        User second = new User();
+        second.setId(3L);
+
+        when(searchIndex.search("ada", 50)).thenReturn(List.of(7L, 3L, 9L));
+        when(userRepository.findAllById(List.of(7L, 3L, 9L))).thenReturn(List.of(second, first));
+
+        List<User> result = userService.searchUsers("ada", null);
+
+        assertEquals(List.of(first, second), result);
+    }
+
+    @Test
+    void searchUsers_noMatchSkipsTheDatabase() {
+        when(searchIndex.search("zz", 10)).thenReturn(List.of());
+
+        assertTrue(userService.searchUsers("zz", 10).isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
     // ---------------- getUserById ----------------
 
     @Test
@@ -61,6 +171,43 @@ class UserServiceTest {
         );
     }
 
+    // ---------------- getUsersPage ----------------
+
+    @Test
+    void getUsersPage_hasNextPage() {
+        User first = new User();
+        first.setId(5L);
+        User second = new User();
+        second.setId(7L);
+        User third = new User();
+        third.setId(9L);
+
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3)))
+                .thenReturn(Arrays.asList(first, second, third));
+
+        UserPage page = userService.getUsersPage(null, 2);
+
+        assertEquals(Arrays.asList(first, second), page.getContent());
+        assertEquals(7L, page.getNextCursor());
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    void getUsersPage_lastPage() {
+        User last = new User();
+        last.setId(9L);
+
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(7L, Limit.of(51)))
+                .thenReturn(List.of(last));
+
+        UserPage page = userService.getUsersPage(7L, null);
+
+        assertEquals(List.of(last), page.getContent());
+        assertEquals(7L, page.getCursor());
+        assertNull(page.getNextCursor());
+        assertFalse(page.hasNext());
+    }
+
     // ---------------- createUser ----------------
 
     @Test
@@ -70,8 +217,8 @@ class UserServiceTest {
         user.setPassword("1234");
         user.setConfirmPassword("1234");
 
-        when(userRepository.findByUsername("imane"))
-                .thenReturn(Optional.empty());
+        when(userRepository.existsByUsername("imane"))
+                .thenReturn(false);
         when(passwordEncoder.encode("1234"))
                 .thenReturn("ENCODED");
         when(userRepository.save(any(User.class)))
@@ -95,12 +242,90 @@ class UserServiceTest {
 
         when(userRepository.findById(1L))
                 .thenReturn(Optional.of(existing));
-        when(userRepository.save(any(User.class)))
-                .thenReturn(existing);
 
         User result = userService.updateUser(updated);
 
         assertEquals("newName", result.getUsername());
+        assertNotNull(result.getLastModifiedOn());
+        verify(userRepository, never()).save(any(User.class));
+        verify(eventPublisher).publishEvent(argThat((UserChangedEvent e) ->
+                e.getType() == UserChangedEvent.Type.UPDATED && e.getPreviousUsername() == null));
+    }
+
+    @Test
+    void updateUser_staleVersionIsRejected() {
+        User existing = new User();
+        existing.setId(1L);
+        existing.setVersion(3L);
+        User updated = new User();
+        updated.setId(1L);
+        updated.setVersion(2L);
+        updated.setUsername("newName");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(existing));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> userService.updateUser(updated));
+
+        assertNull(existing.getUsername());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void updateUser_leavesEqualFieldsAndRolesUntouched() throws Exception {
+        Set<Role> roles = new HashSet<>(Set.of(role(1L), role(2L)));
+        User existing = new User();
+        existing.setId(1L);
+        existing.setVersion(3L);
+        existing.setFirstName("Jane");
+        existing.setRoles(roles);
+        User updated = new User();
+        updated.setId(1L);
+        updated.setVersion(3L);
+        updated.setFirstName("Jane");
+        updated.setRoles(Set.of(role(2L), role(1L)));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(existing));
+
+        User result = userService.updateUser(updated);
+
+        assertSame(roles, result.getRoles());
+        assertNull(result.getLastModifiedOn());
+    }
+
+    @Test
+    void updateUser_missingUserIsNotFound() {
+        User updated = new User();
+        updated.setId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(UsernameOrIdNotFound.class, () -> userService.updateUser(updated));
+    }
+
+    private static Role role(Long id) {
+        Role role = new Role();
+        role.setId(id);
+        return role;
+    }
+
+    // ---------------- getLoggedUser ----------------
+
+    @Test
+    void getLoggedUser_loadsOncePerRequestById() throws Exception {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("imane");
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                new UserPrincipal(7L, "imane", "", List.of(new SimpleGrantedAuthority("ROLE USER"))), null, List.of()));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertSame(user, userService.getLoggedUser());
+            assertSame(user, userService.getLoggedUser());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            SecurityContextHolder.clearContext();
+        }
+
+        verify(userRepository, times(1)).findById(7L);
+        verify(userRepository, never()).loadByUsername(anyString());
     }
 
     // ---------------- deleteUser ----------------
@@ -116,6 +341,8 @@ class UserServiceTest {
         userService.deleteUser(1L);
 
         verify(userRepository).delete(user);
+        verify(eventPublisher).publishEvent(argThat((UserChangedEvent e) ->
+                e.getType() == UserChangedEvent.Type.DELETED && e.getUser() == user));
     }
     @Test
     void changePassword_confirmPasswordMismatch() {
@@ -135,8 +362,8 @@ class UserServiceTest {
         user.setPassword("1234");
         user.setConfirmPassword("1234");
 
-        when(userRepository.findByUsername("imane"))
-                .thenReturn(Optional.of(new User()));
+        when(userRepository.existsByUsername("imane"))
+                .thenReturn(true);
 
         // WHEN + THEN
         CustomFieldValidationException ex = assertThrows(
@@ -146,6 +373,44 @@ class UserServiceTest {
 
         assertEquals("Username not available", ex.getMessage());
         assertEquals("username", ex.getFieldName());
+        verifyNoInteractions(passwordEncoder);
+    }
+
+    @Test
+    void createUser_concurrentSignupLosesOnUniqueIndex() {
+        User user = new User();
+        user.setUsername("imane");
+        user.setPassword("1234");
+        user.setConfirmPassword("1234");
+
+        when(userRepository.existsByUsername("imane")).thenReturn(false);
+        when(passwordEncoder.encode("1234")).thenReturn("ENCODED");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", null, "PUBLIC.UK_USERS_USERNAME")));
+
+        CustomFieldValidationException ex = assertThrows(
+                CustomFieldValidationException.class,
+                () -> userService.createUser(user)
+        );
+
+        assertEquals("Username not available", ex.getMessage());
+        assertEquals("username", ex.getFieldName());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void createUser_otherIntegrityViolationsPropagate() {
+        User user = new User();
+        user.setUsername("imane");
+        user.setPassword("1234");
+        user.setConfirmPassword("1234");
+
+        when(userRepository.existsByUsername("imane")).thenReturn(false);
+        when(passwordEncoder.encode("1234")).thenReturn("ENCODED");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("fk",
+                new ConstraintViolationException("fk", null, "fk_user_roles_role")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(user));
     }
 
 
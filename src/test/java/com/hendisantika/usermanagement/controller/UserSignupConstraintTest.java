@@ -0,0 +1,49 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.exception.CustomFieldValidationException;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * The unique index on {@code users.username} against a real database, with the exists check
+ * bypassed as it would be by a concurrent signup.
+ */
+@DataJpaTest
+class UserSignupConstraintTest {
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @Test
+    void createUser_duplicateInsertMapsToUsernameNotAvailable() throws Exception {
+        doReturn(false).when(userRepository).existsByUsername(anyString());
+        UserService userService = new UserService(userRepository, new BCryptPasswordEncoder(4), event -> { }, null, null);
+
+        userService.createUser(newUser());
+
+        CustomFieldValidationException ex = assertThrows(CustomFieldValidationException.class,
+                () -> userService.createUser(newUser()));
+        assertEquals("Username not available", ex.getMessage());
+        assertEquals("username", ex.getFieldName());
+    }
+
+    private static User newUser() {
+        User user = new User();
+        user.setFirstName("Imane");
+        user.setLastName("Test");
+        user.setEmail("imane@example.com");
+        user.setUsername("imane");
+        user.setPassword("1234");
+        user.setConfirmPassword("1234");
+        return user;
+    }
+}
@@ -0,0 +1,105 @@
+package com.hendisantika.usermanagement.controller;
+
+import com.hendisantika.usermanagement.entity.User;
+import com.hendisantika.usermanagement.event.UserChangedEvent;
+import com.hendisantika.usermanagement.repository.UserRepository;
+import com.hendisantika.usermanagement.service.UsernameAvailabilityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsernameAvailabilityServiceTest {
+
+    private static final int USERS = 10_000;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UsernameAvailabilityService service;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.count()).thenReturn((long) USERS);
+        when(userRepository.streamAllUsernames())
+                .thenReturn(IntStream.range(0, USERS).mapToObj(i -> "user" + i));
+        service = new UsernameAvailabilityService(userRepository, transactionManager, 1000, 0.01);
+        service.init();
+    }
+
+    @Test
+    void isAvailable_unknownNameSkipsTheDatabase() {
+        assertTrue(service.isAvailable("someone-new"));
+
+        verify(userRepository, never()).existsByUsername(anyString());
+        assertEquals(1, service.getFilteredCount());
+    }
+
+    @Test
+    void isAvailable_possibleMatchIsConfirmed() {
+        when(userRepository.existsByUsername("user42")).thenReturn(true);
+
+        assertFalse(service.isAvailable("user42"));
+
+        verify(userRepository).existsByUsername("user42");
+        assertEquals(1, service.getConfirmedTakenCount());
+    }
+
+    @Test
+    void filter_hasNoFalseNegativesAndFewFalsePositives() {
+        lenient().when(userRepository.existsByUsername(anyString())).thenReturn(true);
+        for (int i = 0; i < USERS; i++) {
+            assertFalse(service.isAvailable("user" + i));
+        }
+
+        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        for (int i = 0; i < USERS; i++) {
+            assertTrue(service.isAvailable("other" + i));
+        }
+        // Sized for twice the users at 1%, so well under 1% once half full
+        assertTrue(service.getFalsePositiveCount() < USERS / 100, "false positives: " + service.getFalsePositiveCount());
+        assertTrue(service.getExpectedFalsePositiveRate() < 0.01);
+    }
+
+    @Test
+    void onUserChanged_createdAndRenamedUsersBecomeTaken() {
+        User user = new User();
+        user.setUsername("fresh");
+        assertTrue(service.isAvailable("fresh"));
+
+        service.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, user));
+        when(userRepository.existsByUsername("fresh")).thenReturn(true);
+
+        assertFalse(service.isAvailable("fresh"));
+
+        user.setUsername("renamed");
+        service.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, user, "fresh"));
+        when(userRepository.existsByUsername("renamed")).thenReturn(true);
+
+        assertFalse(service.isAvailable("renamed"));
+    }
+
+    @Test
+    void rebuild_dropsDeletedNames() {
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.streamAllUsernames()).thenReturn(Stream.of("user1"));
+
+        service.rebuild();
+
+        assertTrue(service.isAvailable("user2"));
+        verify(userRepository, never()).existsByUsername("user2");
+    }
+}